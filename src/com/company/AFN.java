@@ -5,9 +5,25 @@ import java.util.*;
 /**
  * <p>Classe que implementa o autômato finito não-determinístico</p>
  * <p>Quarda todas as informações da tupla M = (∑, Q, δ, S, F) caso venham a ser utilizados</p>
+ * <p>As transições, estados e estados finais podem ser alterados depois de criado o autômato sem que ele precise
+ * ser criado novamente. As alterações são feitas uma de cada vez e substituem as estruturas alteradas por cópias,
+ * publicadas em campos voláteis, de forma que palavras sendo computadas ao mesmo tempo em outras threads não são
+ * interrompidas e enxergam as cópias novas por inteiro</p>
  */
 public class AFN extends AutomatoFinito{
 
+    /** Motor bit-paralelo, criado apenas quando o autômato tem no máximo 64 estados */
+    private volatile MotorBitParalelo mMotor;
+
+    /** Constante primo do hash FNV-1a de 64 bits */
+    private static final long PRIMO_HASH = 0x100000001b3L;
+
+    /** Base do hash FNV-1a de 64 bits */
+    private static final long BASE_HASH = 0xcbf29ce484222325L;
+
+    /** Hash do conteúdo do autômato, 0 enquanto não for calculado */
+    private volatile long mHashConteudo;
+
     /**
      * <p>Recebe todas as informações necessárias para que se crie um AFN</p>
      *
@@ -22,6 +38,20 @@ public class AFN extends AutomatoFinito{
                ArrayList<RegraProducao> regrasProducao, String estadoInicial,
                String[] estadosFinais) throws Exception {
         super(alfabeto, estados, regrasProducao, estadoInicial, estadosFinais);
+
+        montaMotor();
+    }
+
+    /**
+     * <p>Monta o motor bit-paralelo do zero caso o autômato tenha no máximo 64 estados</p>
+     */
+    private void montaMotor() {
+        if(mEstados.length <= MotorBitParalelo.MAXIMO_ESTADOS) {
+            mMotor = new MotorBitParalelo(new AlfabetoComprimido(mAlfabeto, mEstados, mRegrasProducao), mEstados,
+                    mEstadoIncial, mEstadosFinais);
+        } else {
+            mMotor = null;
+        }
     }
 
     /**
@@ -35,11 +65,23 @@ public class AFN extends AutomatoFinito{
     @Override
     public HashSet<String> avanca(HashSet<String> estadosAtuais, String simboloLido) throws Exception {
 
+        MotorBitParalelo motor = mMotor;
+
+        if(motor != null) {
+            long destinos = motor.avanca(motor.mascaraDe(estadosAtuais), motor.classeDe(simboloLido));
+
+            if(destinos == 0L) {
+                throw new Exception(mensagemTransicaoIndefinida(estadosAtuais, simboloLido));
+            }
+
+            return motor.estadosDe(destinos);
+        }
+
         String resultado = "";
 
         for (String estado : estadosAtuais) {
             for (RegraProducao regra : mRegrasProducao) {
-                if(estado.equals(regra.getOrigem()) && simboloLido.equals(regra.getSimbolo())) {
+                if(estado.equals(regra.getOrigem()) && regra.le(simboloLido)) {
                     for (String estadoDestino : regra.getDestinos()) {
                         resultado += estadoDestino + ",";
                     }
@@ -55,6 +97,295 @@ public class AFN extends AutomatoFinito{
         return estadosAtuais;
     }
 
+    /**
+     * <p>Computa a palavra inteira sem exibir o passo-a-passo, cada code point da palavra é um símbolo</p>
+     * <p>Usa o motor bit-paralelo quando disponível e o avanço pelas regras de produção nos demais casos</p>
+     *
+     * @param palavra a ser computada
+     * @return true caso a palavra seja aceita pelo autômato
+     */
+    public boolean reconhece(String palavra) {
+        MotorBitParalelo motor = mMotor;
+        if(motor != null) return motor.reconhece(palavra);
+
+        ArrayList<RegraProducao> regrasProducao = mRegrasProducao;
+        HashSet<String> estadosAtuais = new HashSet<String>();
+        estadosAtuais.add(mEstadoIncial);
+
+        for (int i = 0; i < palavra.length() && !estadosAtuais.isEmpty(); ) {
+            int fim = palavra.offsetByCodePoints(i, 1);
+            estadosAtuais = avancaPorRegras(regrasProducao, estadosAtuais, palavra.substring(i, fim));
+            i = fim;
+        }
+
+        for (String estadoFinal : mEstadosFinais) {
+            if(estadosAtuais.contains(estadoFinal)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * <p>Define os destinos de uma transição, substituindo a transição caso ela já exista</p>
+     * <p>Caso o símbolo ainda não faça parte do alfabeto ele é adicionado. Apenas as tabelas do símbolo são
+     * refeitas</p>
+     *
+     * @param origem da transição
+     * @param simbolo lido a partir da origem
+     * @param destinos alcançados depois de feita a leitura, '-' para uma transição indefinida
+     * @throws Exception caso a origem ou algum dos destinos não faça parte do conjunto de estados
+     */
+    public synchronized void defineTransicao(String origem, String simbolo, String[] destinos) throws Exception {
+        validaEstadoExistente(origem);
+
+        for (String destino : destinos) {
+            if(!mListaEstados.contains(destino) && !destino.equals("-")) {
+                throw new Exception("O estado " + destino + " na regra de produção " + origem + " lê " + simbolo +
+                        ", não faz parte do conjunto de estados Q listados");
+            }
+        }
+
+        ArrayList<RegraProducao> regras = regrasSemTransicao(origem, simbolo);
+        regras.add(new RegraProducao(origem, simbolo, destinos));
+        mRegrasProducao = regras;
+
+        if(!Arrays.asList(mAlfabeto).contains(simbolo)) {
+            String[] alfabeto = Arrays.copyOf(mAlfabeto, mAlfabeto.length + 1);
+            alfabeto[mAlfabeto.length] = simbolo;
+            mAlfabeto = alfabeto;
+        }
+
+        mHashConteudo = 0L;
+        atualizaSimbolo(simbolo);
+    }
+
+    /**
+     * <p>Remove uma transição, que passa a ser indefinida</p>
+     *
+     * @param origem da transição
+     * @param simbolo lido a partir da origem
+     */
+    public synchronized void removeTransicao(String origem, String simbolo) {
+        mRegrasProducao = regrasSemTransicao(origem, simbolo);
+
+        mHashConteudo = 0L;
+        atualizaSimbolo(simbolo);
+    }
+
+    /**
+     * <p>Adiciona um novo estado, ainda sem nenhuma transição</p>
+     *
+     * @param estado a ser adicionado
+     * @throws Exception caso o estado já faça parte do conjunto de estados
+     */
+    public synchronized void adicionaEstado(String estado) throws Exception {
+        if(mListaEstados.contains(estado)) {
+            throw new Exception("O estado " + estado + " já faz parte do conjunto de estados Q listados");
+        }
+
+        String[] estados = Arrays.copyOf(mEstados, mEstados.length + 1);
+        estados[mEstados.length] = estado;
+        mEstados = estados;
+        mListaEstados = new ArrayList<String>(Arrays.asList(estados));
+
+        mHashConteudo = 0L;
+        MotorBitParalelo motor = mMotor;
+        if(motor != null && !motor.adicionaEstado(estado)) mMotor = null;
+    }
+
+    /**
+     * <p>Remove um estado, junto com as transições que partem dele e com as suas ocorrências como destino de outras
+     * transições</p>
+     *
+     * @param estado a ser removido
+     * @throws Exception caso o estado não faça parte do conjunto de estados ou seja o estado inicial
+     */
+    public synchronized void removeEstado(String estado) throws Exception {
+        validaEstadoExistente(estado);
+
+        if(estado.equals(mEstadoIncial)) {
+            throw new Exception("O estado inicial " + estado + " não pode ser removido");
+        }
+
+        ArrayList<RegraProducao> regras = new ArrayList<RegraProducao>();
+        for (RegraProducao regra : mRegrasProducao) {
+            if(regra.getOrigem().equals(estado)) continue;
+
+            ArrayList<String> destinos = new ArrayList<String>(Arrays.asList(regra.getDestinos()));
+            if(destinos.removeAll(Collections.singleton(estado))) {
+                if(destinos.isEmpty()) destinos.add("-");
+                regra = new RegraProducao(regra.getOrigem(), regra.getSimbolo(), destinos.toArray(new String[0]));
+            }
+
+            regras.add(regra);
+        }
+
+        mRegrasProducao = regras;
+        mEstadosFinais = semEstado(mEstadosFinais, estado);
+        mEstados = semEstado(mEstados, estado);
+        mListaEstados = new ArrayList<String>(Arrays.asList(mEstados));
+
+        mHashConteudo = 0L;
+        MotorBitParalelo motor = mMotor;
+        if(motor != null) {
+            motor.removeEstado(estado);
+        } else {
+            montaMotor();
+        }
+    }
+
+    /**
+     * <p>Torna um estado existente em estado final</p>
+     *
+     * @param estado a se tornar final
+     * @throws Exception caso o estado não faça parte do conjunto de estados
+     */
+    public synchronized void adicionaEstadoFinal(String estado) throws Exception {
+        validaEstadoExistente(estado);
+
+        if(Arrays.asList(mEstadosFinais).contains(estado)) return;
+
+        String[] estadosFinais = Arrays.copyOf(mEstadosFinais, mEstadosFinais.length + 1);
+        estadosFinais[mEstadosFinais.length] = estado;
+        mEstadosFinais = estadosFinais;
+
+        mHashConteudo = 0L;
+        MotorBitParalelo motor = mMotor;
+        if(motor != null) motor.defineFinal(estado, true);
+    }
+
+    /**
+     * <p>Faz com que um estado deixe de ser final</p>
+     *
+     * @param estado que deixa de ser final
+     */
+    public synchronized void removeEstadoFinal(String estado) {
+        mEstadosFinais = semEstado(mEstadosFinais, estado);
+
+        mHashConteudo = 0L;
+        MotorBitParalelo motor = mMotor;
+        if(motor != null) motor.defineFinal(estado, false);
+    }
+
+    /**
+     * <p>Calcula um hash de 64 bits (FNV-1a) sobre todo o conteúdo do autômato: alfabeto, estados na ordem em que
+     * foram informados, regras de produção, estado inicial e estados finais</p>
+     * <p>O hash é guardado e só é calculado de novo depois de alguma alteração no autômato</p>
+     *
+     * @return o hash do conteúdo do autômato
+     */
+    public synchronized long getHashConteudo() {
+        long hash = mHashConteudo;
+        if(hash != 0L) return hash;
+
+        hash = BASE_HASH;
+        hash = misturaHash(hash, mAlfabeto);
+        hash = misturaHash(hash, mEstados);
+        for (RegraProducao regra : mRegrasProducao) {
+            hash = misturaHash(hash, regra.getOrigem());
+            hash = misturaHash(hash, regra.getSimbolo());
+            hash = misturaHash(hash, regra.getDestinos());
+        }
+        hash = misturaHash(hash, mEstadoIncial);
+        hash = misturaHash(hash, mEstadosFinais);
+
+        mHashConteudo = hash;
+        return hash;
+    }
+
+    /**
+     * <p>Mistura um vetor de textos ao hash, junto com o tamanho do vetor</p>
+     *
+     * @param hash calculado até aqui
+     * @param textos a serem misturados
+     * @return o novo hash
+     */
+    private static long misturaHash(long hash, String[] textos) {
+        hash = (hash ^ textos.length) * PRIMO_HASH;
+
+        for (String texto : textos) {
+            hash = misturaHash(hash, texto);
+        }
+
+        return hash;
+    }
+
+    /**
+     * <p>Mistura um texto ao hash, seguido de um separador que não aparece em textos válidos</p>
+     *
+     * @param hash calculado até aqui
+     * @param texto a ser misturado
+     * @return o novo hash
+     */
+    private static long misturaHash(long hash, String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            hash = (hash ^ texto.charAt(i)) * PRIMO_HASH;
+        }
+
+        return (hash ^ 0xFFFF) * PRIMO_HASH;
+    }
+
+    /**
+     * <p>Resgata o motor bit-paralelo atual</p>
+     *
+     * @return o motor ou null caso o autômato tenha mais de 64 estados
+     */
+    MotorBitParalelo getMotor() { return mMotor; }
+
+    /**
+     * <p>Atualiza o motor depois de alteradas as transições de um símbolo, montando-o do zero apenas quando o
+     * motor pede</p>
+     *
+     * @param simbolo que teve as transições alteradas
+     */
+    private void atualizaSimbolo(String simbolo) {
+        MotorBitParalelo motor = mMotor;
+        if(motor != null && !motor.redefineSimbolo(simbolo, mRegrasProducao)) montaMotor();
+    }
+
+    /**
+     * <p>Copia as regras de produção deixando de fora a transição informada</p>
+     *
+     * @param origem da transição
+     * @param simbolo lido a partir da origem
+     * @return a cópia das regras de produção sem a transição
+     */
+    private ArrayList<RegraProducao> regrasSemTransicao(String origem, String simbolo) {
+        ArrayList<RegraProducao> regras = new ArrayList<RegraProducao>();
+
+        for (RegraProducao regra : mRegrasProducao) {
+            if(!regra.getOrigem().equals(origem) || !regra.getSimbolo().equals(simbolo)) regras.add(regra);
+        }
+
+        return regras;
+    }
+
+    /**
+     * <p>Copia um vetor de estados deixando de fora o estado informado</p>
+     *
+     * @param estados a serem copiados
+     * @param estado a ser deixado de fora
+     * @return a cópia do vetor sem o estado
+     */
+    private String[] semEstado(String[] estados, String estado) {
+        ArrayList<String> restantes = new ArrayList<String>(Arrays.asList(estados));
+        restantes.removeAll(Collections.singleton(estado));
+
+        return restantes.toArray(new String[0]);
+    }
+
+    /**
+     * <p>Verifica se o estado faz parte do conjunto de estados do autômato</p>
+     *
+     * @param estado a ser verificado
+     * @throws Exception caso o estado não faça parte do conjunto de estados
+     */
+    private void validaEstadoExistente(String estado) throws Exception {
+        if(!mListaEstados.contains(estado)) {
+            throw new Exception("O estado " + estado + " não faz parte do conjunto de estados Q listados");
+        }
+    }
+
     /**
      * <p>Formata a String para que não haja problemas no momento de definiro HashSet</p>
      * <p>Analisa se não foram obtidas nenhuma transiçã ou se há transições indefinidas que foram lidas das regras de
@@ -70,16 +401,7 @@ public class AFN extends AutomatoFinito{
      */
     private String ajustaResultado(String result, HashSet<String> estadosAtuais, String simboloLido) throws Exception {
         if(result.equals("-,")) {
-            String mensagem = "Para o(s) estado(s) ";
-
-            for (String estado : estadosAtuais) {
-                mensagem += estado + ", ";
-            }
-
-            mensagem += "xxx a transição lê '" + simboloLido + "' é indefinida. Portanto a palavra é REJEITADA!";
-            mensagem = mensagem.replace(", xxx", "");
-
-            throw new Exception(mensagem);
+            throw new Exception(mensagemTransicaoIndefinida(estadosAtuais, simboloLido));
         }
 
         result = result.replace("-", "");
@@ -93,4 +415,24 @@ public class AFN extends AutomatoFinito{
 
         return result;
     }
+
+    /**
+     * <p>Monta a mensagem de rejeição para quando nenhum estado é atingido lendo o símbolo</p>
+     *
+     * @param estadosAtuais para os quais a transição é indefinida
+     * @param simboloLido da cadeia de símbolos informadas como entrada
+     * @return a mensagem de transição indefinida
+     */
+    private String mensagemTransicaoIndefinida(HashSet<String> estadosAtuais, String simboloLido) {
+        String mensagem = "Para o(s) estado(s) ";
+
+        for (String estado : estadosAtuais) {
+            mensagem += estado + ", ";
+        }
+
+        mensagem += "xxx a transição lê '" + simboloLido + "' é indefinida. Portanto a palavra é REJEITADA!";
+        mensagem = mensagem.replace(", xxx", "");
+
+        return mensagem;
+    }
 }
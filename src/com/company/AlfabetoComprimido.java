@@ -0,0 +1,412 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * <p>Agrupa os símbolos do alfabeto em classes de equivalência</p>
+ * <p>Dois símbolos são equivalentes quando, em todos os estados, levam exatamente aos mesmos destinos. Como não há
+ * como distinguir esses símbolos durante a computação, as tabelas de transição precisam de apenas uma coluna por
+ * classe, e não uma por símbolo</p>
+ * <p>Os símbolos de um code point e os intervalos no formato [a-z] são quebrados em intervalos elementares de code
+ * points, guardados em uma tabela ordenada pesquisada por busca binária. Os code points Latin-1 ainda são
+ * traduzidos diretamente por um vetor, e os símbolos com mais de um code point por um HashMap</p>
+ * <p>As instâncias nunca são alteradas depois de publicadas: as alterações do autômato geram uma nova instância que
+ * compartilha com a anterior tudo o que não foi afetado</p>
+ *
+ * @author goislimat
+ */
+public class AlfabetoComprimido {
+
+    /** Quantidade de code points atendidos pelo vetor de tradução */
+    private static final int TAMANHO_LATIN1 = 256;
+
+    /** Classe de cada code point Latin-1, -1 para code points fora do alfabeto */
+    private int[] mClassesLatin1;
+
+    /** Primeiro code point de cada intervalo da tabela, em ordem crescente */
+    private int[] mInicios;
+
+    /** Último code point de cada intervalo da tabela */
+    private int[] mFins;
+
+    /** Classe de cada intervalo da tabela */
+    private int[] mClasses;
+
+    /** Classe dos símbolos com mais de um code point */
+    private HashMap<String, Integer> mClassesDemais;
+
+    /** Transições de cada classe, cada par codificado como (origem &lt;&lt; 32 | destino) */
+    private ArrayList<long[]> mTransicoes;
+
+    /** Um símbolo qualquer lido por cada classe */
+    private ArrayList<String> mRepresentantes;
+
+    /**
+     * <p>Calcula as classes de equivalência comparando a coluna de transições de cada símbolo</p>
+     *
+     * @param alfabeto reconhecido
+     * @param estados existentes no autômato
+     * @param regrasProducao para cada uma das transições existentes
+     */
+    public AlfabetoComprimido(String[] alfabeto, String[] estados, ArrayList<RegraProducao> regrasProducao) {
+        HashMap<String, Integer> indiceEstados = new HashMap<String, Integer>();
+        for (int i = 0; i < estados.length; i++) {
+            if(!indiceEstados.containsKey(estados[i])) indiceEstados.put(estados[i], i);
+        }
+
+        TreeSet<Integer> fronteiras = new TreeSet<Integer>();
+        ArrayList<int[]> cobertos = new ArrayList<int[]>();
+        HashMap<String, TreeSet<Long>> colunasDemais = new HashMap<String, TreeSet<Long>>();
+
+        for (String simbolo : alfabeto) {
+            adicionaSimbolo(simbolo, fronteiras, cobertos, colunasDemais);
+        }
+        for (RegraProducao regra : regrasProducao) {
+            adicionaSimbolo(regra.getSimbolo(), fronteiras, cobertos, colunasDemais);
+        }
+
+        int[] pontos = new int[fronteiras.size()];
+        int p = 0;
+        for (Integer fronteira : fronteiras) pontos[p++] = fronteira;
+
+        ArrayList<TreeSet<Long>> colunas = new ArrayList<TreeSet<Long>>();
+        for (int i = 0; i + 1 < pontos.length; i++) colunas.add(null);
+
+        for (int[] intervalo : cobertos) {
+            for (int i = Arrays.binarySearch(pontos, intervalo[0]); pontos[i] <= intervalo[1]; i++) {
+                if(colunas.get(i) == null) colunas.set(i, new TreeSet<Long>());
+            }
+        }
+
+        for (RegraProducao regra : regrasProducao) {
+            Integer origem = indiceEstados.get(regra.getOrigem());
+            if(origem == null) continue;
+
+            ArrayList<Long> pares = new ArrayList<Long>();
+            for (String destino : regra.getDestinos()) {
+                Integer indice = indiceEstados.get(destino);
+                if(indice != null) pares.add(((long) origem << 32) | indice);
+            }
+
+            if(regra.getInicio() < 0) {
+                colunasDemais.get(regra.getSimbolo()).addAll(pares);
+                continue;
+            }
+
+            for (int i = Arrays.binarySearch(pontos, regra.getInicio()); pontos[i] <= regra.getFim(); i++) {
+                colunas.get(i).addAll(pares);
+            }
+        }
+
+        mTransicoes = new ArrayList<long[]>();
+        mRepresentantes = new ArrayList<String>();
+        HashMap<TreeSet<Long>, Integer> classes = new HashMap<TreeSet<Long>, Integer>();
+
+        ArrayList<int[]> tabela = new ArrayList<int[]>();
+        for (int i = 0; i < colunas.size(); i++) {
+            if(colunas.get(i) == null) continue;
+
+            int classe = classeDaColuna(colunas.get(i), classes, new String(Character.toChars(pontos[i])));
+            int[] anterior = tabela.isEmpty() ? null : tabela.get(tabela.size() - 1);
+
+            if(anterior != null && anterior[1] + 1 == pontos[i] && anterior[2] == classe) {
+                anterior[1] = pontos[i + 1] - 1;
+            } else {
+                tabela.add(new int[] { pontos[i], pontos[i + 1] - 1, classe });
+            }
+        }
+
+        mInicios = new int[tabela.size()];
+        mFins = new int[tabela.size()];
+        mClasses = new int[tabela.size()];
+        for (int i = 0; i < tabela.size(); i++) {
+            mInicios[i] = tabela.get(i)[0];
+            mFins[i] = tabela.get(i)[1];
+            mClasses[i] = tabela.get(i)[2];
+        }
+
+        mClassesDemais = new HashMap<String, Integer>();
+        for (String simbolo : colunasDemais.keySet()) {
+            mClassesDemais.put(simbolo, classeDaColuna(colunasDemais.get(simbolo), classes, simbolo));
+        }
+
+        montaLatin1();
+    }
+
+    /**
+     * <p>Cria uma cópia que compartilha as tabelas com o original, para ser alterada antes de ser publicada</p>
+     *
+     * @param original a ser copiado
+     */
+    private AlfabetoComprimido(AlfabetoComprimido original) {
+        mClassesLatin1 = original.mClassesLatin1;
+        mInicios = original.mInicios;
+        mFins = original.mFins;
+        mClasses = original.mClasses;
+        mClassesDemais = original.mClassesDemais;
+        mTransicoes = new ArrayList<long[]>(original.mTransicoes);
+        mRepresentantes = new ArrayList<String>(original.mRepresentantes);
+    }
+
+    /**
+     * <p>Monta o vetor de tradução direta dos code points Latin-1 a partir da tabela de intervalos</p>
+     */
+    private void montaLatin1() {
+        mClassesLatin1 = new int[TAMANHO_LATIN1];
+        for (int codePoint = 0; codePoint < TAMANHO_LATIN1; codePoint++) {
+            mClassesLatin1[codePoint] = pesquisaTabela(codePoint);
+        }
+    }
+
+    /**
+     * <p>Cria um novo alfabeto onde tudo o que o símbolo lê passa a pertencer a classes novas, exclusivas do
+     * símbolo, para que as transições dessas classes possam ser redefinidas sem afetar os demais símbolos</p>
+     * <p>As classes novas são numeradas a partir de {@link #getQuantidadeClasses()} deste alfabeto e começam com as
+     * mesmas transições das classes que substituem. As classes substituídas continuam existindo, de forma que os
+     * símbolos fora do intervalo e quem ainda usa este alfabeto não são afetados</p>
+     *
+     * @param simbolo que terá as transições redefinidas
+     * @return o novo alfabeto
+     */
+    public AlfabetoComprimido isola(String simbolo) {
+        AlfabetoComprimido novo = new AlfabetoComprimido(this);
+        HashMap<Integer, Integer> substitutas = new HashMap<Integer, Integer>();
+        int[] intervalo = RegraProducao.intervaloDe(simbolo);
+
+        if(intervalo == null) {
+            Integer antiga = mClassesDemais.get(simbolo);
+
+            novo.mClassesDemais = new HashMap<String, Integer>(mClassesDemais);
+            novo.mClassesDemais.put(simbolo, novo.substituta(antiga == null ? -1 : antiga, simbolo, substitutas));
+            return novo;
+        }
+
+        int inicio = intervalo[0];
+        int fim = intervalo[1];
+        int proximo = inicio;
+        ArrayList<int[]> tabela = new ArrayList<int[]>();
+
+        for (int i = 0; i < mInicios.length; i++) {
+            if(mFins[i] < inicio || mInicios[i] > fim) {
+                if(mInicios[i] > fim && proximo <= fim) {
+                    tabela.add(new int[] { proximo, fim, novo.substituta(-1, proximo, substitutas) });
+                    proximo = fim + 1;
+                }
+
+                tabela.add(new int[] { mInicios[i], mFins[i], mClasses[i] });
+                continue;
+            }
+
+            if(mInicios[i] < inicio) tabela.add(new int[] { mInicios[i], inicio - 1, mClasses[i] });
+
+            int de = Math.max(mInicios[i], inicio);
+            int ate = Math.min(mFins[i], fim);
+
+            if(proximo < de) tabela.add(new int[] { proximo, de - 1, novo.substituta(-1, proximo, substitutas) });
+            tabela.add(new int[] { de, ate, novo.substituta(mClasses[i], de, substitutas) });
+            proximo = ate + 1;
+
+            if(mFins[i] > fim) tabela.add(new int[] { fim + 1, mFins[i], mClasses[i] });
+        }
+
+        if(proximo <= fim) tabela.add(new int[] { proximo, fim, novo.substituta(-1, proximo, substitutas) });
+
+        novo.mInicios = new int[tabela.size()];
+        novo.mFins = new int[tabela.size()];
+        novo.mClasses = new int[tabela.size()];
+        for (int i = 0; i < tabela.size(); i++) {
+            novo.mInicios[i] = tabela.get(i)[0];
+            novo.mFins[i] = tabela.get(i)[1];
+            novo.mClasses[i] = tabela.get(i)[2];
+        }
+        novo.montaLatin1();
+
+        return novo;
+    }
+
+    /**
+     * <p>Resgata a classe que substitui uma classe antiga dentro do intervalo sendo isolado, criando-a caso ainda
+     * não exista</p>
+     *
+     * @param antiga classe substituída, -1 para code points que não pertenciam ao alfabeto
+     * @param codePoint lido pela classe
+     * @param substitutas já criadas
+     * @return a classe substituta
+     */
+    private int substituta(int antiga, int codePoint, HashMap<Integer, Integer> substitutas) {
+        return substituta(antiga, new String(Character.toChars(codePoint)), substitutas);
+    }
+
+    /**
+     * <p>Resgata a classe que substitui uma classe antiga, criando-a caso ainda não exista</p>
+     *
+     * @param antiga classe substituída, -1 para símbolos que não pertenciam ao alfabeto
+     * @param representante símbolo lido pela classe
+     * @param substitutas já criadas
+     * @return a classe substituta
+     */
+    private int substituta(int antiga, String representante, HashMap<Integer, Integer> substitutas) {
+        Integer classe = substitutas.get(antiga);
+
+        if(classe == null) {
+            classe = mTransicoes.size();
+            substitutas.put(antiga, classe);
+            mTransicoes.add(antiga < 0 ? new long[0] : mTransicoes.get(antiga));
+            mRepresentantes.add(representante);
+        }
+
+        return classe;
+    }
+
+    /**
+     * <p>Cria um novo alfabeto sem nenhuma transição que parta ou chegue ao estado removido</p>
+     *
+     * @param indice do estado removido
+     * @return o novo alfabeto
+     */
+    public AlfabetoComprimido semEstado(int indice) {
+        AlfabetoComprimido novo = new AlfabetoComprimido(this);
+
+        for (int classe = 0; classe < mTransicoes.size(); classe++) {
+            ArrayList<Long> pares = new ArrayList<Long>();
+            for (long par : mTransicoes.get(classe)) {
+                if((int) (par >>> 32) != indice && (int) par != indice) pares.add(par);
+            }
+
+            if(pares.size() == mTransicoes.get(classe).length) continue;
+
+            long[] restantes = new long[pares.size()];
+            for (int i = 0; i < restantes.length; i++) restantes[i] = pares.get(i);
+            novo.mTransicoes.set(classe, restantes);
+        }
+
+        return novo;
+    }
+
+    /**
+     * <p>Redefine as transições de uma classe, usado apenas antes de o alfabeto ser publicado</p>
+     *
+     * @param classe de símbolos
+     * @param pares de transições, cada par codificado como (origem &lt;&lt; 32 | destino)
+     */
+    public void defineTransicoes(int classe, long[] pares) {
+        mTransicoes.set(classe, pares);
+    }
+
+    /**
+     * <p>Registra um símbolo, seja como intervalo de code points ou como símbolo de mais de um code point</p>
+     *
+     * @param simbolo a ser registrado
+     * @param fronteiras onde os intervalos elementares começam
+     * @param cobertos intervalos que fazem parte do alfabeto
+     * @param colunasDemais colunas dos símbolos com mais de um code point
+     */
+    private void adicionaSimbolo(String simbolo, TreeSet<Integer> fronteiras, ArrayList<int[]> cobertos,
+                                 HashMap<String, TreeSet<Long>> colunasDemais) {
+        int[] intervalo = RegraProducao.intervaloDe(simbolo);
+
+        if(intervalo == null) {
+            if(!colunasDemais.containsKey(simbolo)) colunasDemais.put(simbolo, new TreeSet<Long>());
+            return;
+        }
+
+        fronteiras.add(intervalo[0]);
+        fronteiras.add(intervalo[1] + 1);
+        cobertos.add(intervalo);
+    }
+
+    /**
+     * <p>Resgata a classe de uma coluna de transições, criando uma nova classe caso a coluna ainda não exista</p>
+     *
+     * @param coluna com os pares de transições
+     * @param classes já criadas
+     * @param representante símbolo lido pela coluna
+     * @return a classe da coluna
+     */
+    private int classeDaColuna(TreeSet<Long> coluna, HashMap<TreeSet<Long>, Integer> classes,
+                               String representante) {
+        Integer classe = classes.get(coluna);
+
+        if(classe == null) {
+            classe = classes.size();
+            classes.put(coluna, classe);
+
+            long[] pares = new long[coluna.size()];
+            int i = 0;
+            for (Long par : coluna) pares[i++] = par;
+            mTransicoes.add(pares);
+            mRepresentantes.add(representante);
+        }
+
+        return classe;
+    }
+
+    /**
+     * <p>Procura o code point na tabela de intervalos por busca binária</p>
+     *
+     * @param codePoint lido da entrada
+     * @return a classe do intervalo que contém o code point ou -1 caso nenhum contenha
+     */
+    private int pesquisaTabela(int codePoint) {
+        int i = Arrays.binarySearch(mInicios, codePoint);
+        if(i < 0) i = -i - 2;
+
+        if(i < 0 || codePoint > mFins[i]) return -1;
+
+        return mClasses[i];
+    }
+
+    /**
+     * <p>Traduz um code point da entrada para a sua classe sem criar objetos</p>
+     *
+     * @param codePoint lido da entrada
+     * @return a classe do code point ou -1 caso ele não faça parte do alfabeto
+     */
+    public int classeDe(int codePoint) {
+        if(codePoint >= 0 && codePoint < TAMANHO_LATIN1) return mClassesLatin1[codePoint];
+
+        return pesquisaTabela(codePoint);
+    }
+
+    /**
+     * <p>Traduz um símbolo para a sua classe</p>
+     *
+     * @param simbolo do alfabeto
+     * @return a classe do símbolo ou -1 caso ele não faça parte do alfabeto
+     */
+    public int classeDe(String simbolo) {
+        if(!simbolo.isEmpty() && Character.charCount(simbolo.codePointAt(0)) == simbolo.length()) {
+            return classeDe(simbolo.codePointAt(0));
+        }
+
+        Integer classe = mClassesDemais.get(simbolo);
+        return classe == null ? -1 : classe;
+    }
+
+    /**
+     * <p>Resgata as transições de uma classe, cada par codificado como (origem &lt;&lt; 32 | destino) com os índices
+     * dos estados no vetor de estados do autômato</p>
+     *
+     * @param classe de símbolos
+     * @return os pares de transições da classe
+     */
+    public long[] getTransicoes(int classe) { return mTransicoes.get(classe); }
+
+    /**
+     * <p>Resgata um símbolo qualquer lido pela classe</p>
+     *
+     * @param classe de símbolos
+     * @return o símbolo representante da classe
+     */
+    public String getRepresentante(int classe) { return mRepresentantes.get(classe); }
+
+    /**
+     * <p>Resgata a quantidade de classes de equivalência</p>
+     *
+     * @return a quantidade de classes
+     */
+    public int getQuantidadeClasses() { return mTransicoes.size(); }
+}
@@ -12,23 +12,23 @@ import java.util.List;
  */
 public abstract class AutomatoFinito {
 
-    /** Alfabeto do autômato */
-    protected String[] mAlfabeto;
+    /** Alfabeto do autômato, substituído por inteiro a cada alteração */
+    protected volatile String[] mAlfabeto;
 
-    /** Conjunto de estados */
-    protected String[] mEstados;
+    /** Conjunto de estados, substituído por inteiro a cada alteração */
+    protected volatile String[] mEstados;
 
-    /** Conjunto das resgras de produção */
-    protected ArrayList<RegraProducao> mRegrasProducao;
+    /** Conjunto das resgras de produção, substituído por inteiro a cada alteração */
+    protected volatile ArrayList<RegraProducao> mRegrasProducao;
 
     /** Estado inicial */
     protected String mEstadoIncial;
 
-    /** Estados finais */
-    protected String[] mEstadosFinais;
+    /** Estados finais, substituídos por inteiro a cada alteração */
+    protected volatile String[] mEstadosFinais;
 
     /** Armazena uma lista de estados sendo validada */
-    protected List<String> mListaEstados;
+    protected volatile List<String> mListaEstados;
 
     /**
      * <p>Recebe todas as informações necessárias para que se crie um Autômato Finito</p>
@@ -63,6 +63,41 @@ public abstract class AutomatoFinito {
      */
     public abstract HashSet<String> avanca(HashSet<String> estadosAtuais, String simboloLido) throws Exception;
 
+    /**
+     * <p>Avança a computação percorrendo as regras de produção, sem tabelas pré-computadas e sem montar textos. O
+     * estado indefinido '-' é ignorado</p>
+     *
+     * @param estadosAtuais reflete todos os estados correntes na computação
+     * @param simboloLido é o símbolo que atualmente se encontra em fase de processamento
+     * @return um novo HashSet com todos os estados atingidos, vazio caso nenhum seja atingido
+     */
+    HashSet<String> avancaPorRegras(HashSet<String> estadosAtuais, String simboloLido) {
+        return avancaPorRegras(mRegrasProducao, estadosAtuais, simboloLido);
+    }
+
+    /**
+     * <p>Avança a computação percorrendo uma versão já resgatada das regras de produção</p>
+     *
+     * @param regrasProducao a serem percorridas
+     * @param estadosAtuais reflete todos os estados correntes na computação
+     * @param simboloLido é o símbolo que atualmente se encontra em fase de processamento
+     * @return um novo HashSet com todos os estados atingidos, vazio caso nenhum seja atingido
+     */
+    static HashSet<String> avancaPorRegras(ArrayList<RegraProducao> regrasProducao, HashSet<String> estadosAtuais,
+                                           String simboloLido) {
+        HashSet<String> proximos = new HashSet<String>();
+
+        for (RegraProducao regra : regrasProducao) {
+            if(estadosAtuais.contains(regra.getOrigem()) && regra.le(simboloLido)) {
+                for (String destino : regra.getDestinos()) {
+                    if(!destino.equals("-")) proximos.add(destino);
+                }
+            }
+        }
+
+        return proximos;
+    }
+
     /**
      * <p>Verifica a validade do autômato passado por parâmetro de acordo com os padrões analisados</p>
      *
@@ -127,6 +162,27 @@ public abstract class AutomatoFinito {
         return mEstadoIncial;
     }
 
+    /**
+     * <p>Resgata o alfabeto</p>
+     *
+     * @return os símbolos do alfabeto
+     */
+    public String[] getAlfabeto() { return mAlfabeto; }
+
+    /**
+     * <p>Resgata as regras de produção</p>
+     *
+     * @return a lista de regras de produção
+     */
+    public ArrayList<RegraProducao> getRegrasProducao() { return mRegrasProducao; }
+
+    /**
+     * <p>Resgata o vetor de estados</p>
+     *
+     * @return os estados do autômato
+     */
+    public String[] getEstados() { return mEstados; }
+
     /**
      * <p>Resgata o vetor de estados finais</p>
      *
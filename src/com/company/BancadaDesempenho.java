@@ -0,0 +1,274 @@
+package com.company;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * <p>Mede o desempenho das implementações de {@link Processavel} sobre autômatos e palavras gerados por
+ * {@link GeradorAFN}</p>
+ * <p>Para cada carga de trabalho e cada implementação são medidos a vazão, a latência por palavra e a quantidade de
+ * bytes alocados por palavra. Também é medido como o custo de {@link ReconhecedorMultiplo} cresce com a quantidade
+ * de autômatos unidos, comparado a computar cada autômato separadamente. O resultado é gravado em um arquivo JSON
+ * para que versões diferentes do programa possam ser comparadas</p>
+ *
+ * <p>Uso: java com.company.BancadaDesempenho [versao] [arquivo de saída] [semente]</p>
+ *
+ * @author goislimat
+ */
+public class BancadaDesempenho {
+
+    /** Cargas de trabalho medidas: estados, tamanho do alfabeto, grau de não-determinismo e densidade de finais */
+    private static final double[][] CARGAS = {
+            { 8, 2, 1.5, 0.25 },
+            { 32, 4, 1.5, 0.25 },
+            { 64, 26, 2.0, 0.1 },
+            { 64, 200, 1.2, 0.1 },
+            { 100, 4, 1.5, 0.25 },
+    };
+
+    /** Quantidades de autômatos unidos nas medições de {@link ReconhecedorMultiplo} */
+    private static final int[] QUANTIDADES_AUTOMATOS = { 10, 100, 400, 800 };
+
+    /** Quantidade de estados de cada autômato unido */
+    private static final int ESTADOS_UNIDOS = 16;
+
+    /** Tamanho do alfabeto de cada autômato unido */
+    private static final int ALFABETO_UNIDOS = 4;
+
+    /** Quantidade de palavras de cada carga de trabalho */
+    private static final int QUANTIDADE_PALAVRAS = 2000;
+
+    /** Proporção de palavras aceitas em cada carga de trabalho */
+    private static final double PROPORCAO_ACEITAS = 0.5;
+
+    /** Tamanho máximo de cada palavra, em símbolos */
+    private static final int TAMANHO_MAXIMO = 32;
+
+    /** Quantidade mínima de palavras processadas antes da medição, para que a JVM compile o código quente */
+    private static final int CHAMADAS_AQUECIMENTO = 10000;
+
+    /** Tempo mínimo de aquecimento antes da medição, em nanossegundos */
+    private static final long TEMPO_AQUECIMENTO_NS = 1000000000L;
+
+    /** Quantidade de vezes que as palavras são processadas durante a medição, a vazão vem da rodada mediana */
+    private static final int RODADAS_MEDICAO = 5;
+
+    /**
+     * <p>Executa todas as cargas de trabalho e grava o relatório</p>
+     *
+     * @param args versão sendo medida, arquivo de saída e semente, todos opcionais
+     * @throws Exception caso algum autômato gerado seja inválido ou o relatório não possa ser gravado
+     */
+    public static void main(String[] args) throws Exception {
+        String versao = args.length > 0 ? args[0] : "local";
+        String arquivo = args.length > 1 ? args[1] : "desempenho.json";
+        long semente = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        GeradorAFN gerador = new GeradorAFN(semente);
+        ArrayList<String> resultados = new ArrayList<String>();
+
+        for (double[] carga : CARGAS) {
+            AFN afn = gerador.geraAutomato((int) carga[0], (int) carga[1], carga[2], carga[3]);
+            ArrayList<String> palavras = gerador.geraPalavras(afn, QUANTIDADE_PALAVRAS, PROPORCAO_ACEITAS,
+                    TAMANHO_MAXIMO);
+
+            int aceitas = 0;
+            for (String palavra : palavras) {
+                if(afn.reconhece(palavra)) aceitas++;
+            }
+
+            Processavel[] implementacoes = { new ReconhecimentoSilencioso(), new ReconhecimentoPorRegras() };
+            for (Processavel implementacao : implementacoes) {
+                String resultado = mede(implementacao, afn, palavras, carga, aceitas);
+                resultados.add(resultado);
+                System.out.println(resultado);
+            }
+        }
+
+        for (int quantidade : QUANTIDADES_AUTOMATOS) {
+            final ArrayList<AFN> automatos = new ArrayList<AFN>();
+            for (int i = 0; i < quantidade; i++) {
+                automatos.add(gerador.geraAutomato(ESTADOS_UNIDOS, ALFABETO_UNIDOS, 1.5, 0.25));
+            }
+
+            final ArrayList<String> palavras = gerador.geraPalavras(automatos.get(0), QUANTIDADE_PALAVRAS,
+                    PROPORCAO_ACEITAS, TAMANHO_MAXIMO);
+            final ReconhecedorMultiplo unidos = new ReconhecedorMultiplo(automatos);
+
+            Runnable rodadaUnidos = new Runnable() {
+                @Override
+                public void run() {
+                    for (String palavra : palavras) unidos.reconhece(palavra);
+                }
+            };
+
+            Runnable rodadaSeparados = new Runnable() {
+                @Override
+                public void run() {
+                    for (String palavra : palavras) {
+                        for (AFN afn : automatos) afn.reconhece(palavra);
+                    }
+                }
+            };
+
+            String[] medicoes = {
+                    medeUnidos("ReconhecedorMultiplo", rodadaUnidos, quantidade, palavras.size()),
+                    medeUnidos("AFNsSeparados", rodadaSeparados, quantidade, palavras.size())
+            };
+            for (String resultado : medicoes) {
+                resultados.add(resultado);
+                System.out.println(resultado);
+            }
+        }
+
+        gravaRelatorio(arquivo, versao, semente, resultados);
+    }
+
+    /**
+     * <p>Mede quanto custa computar as mesmas palavras em vários autômatos, de uma só vez ou um autômato por vez</p>
+     * <p>A primeira rodada é medida à parte, antes do aquecimento, porque é nela que o cache de
+     * {@link ReconhecedorMultiplo} é preenchido</p>
+     *
+     * @param implementacao nome da forma de computar
+     * @param rodada computa todas as palavras em todos os autômatos uma vez
+     * @param quantidade de autômatos
+     * @param palavras quantidade de palavras de cada rodada
+     * @return o resultado da medição como um objeto JSON
+     */
+    private static String medeUnidos(String implementacao, Runnable rodada, int quantidade, int palavras) {
+        long inicioAquecimento = System.nanoTime();
+        rodada.run();
+        long primeiraRodada = System.nanoTime() - inicioAquecimento;
+        int aquecimento = palavras;
+
+        while (aquecimento < CHAMADAS_AQUECIMENTO || System.nanoTime() - inicioAquecimento < TEMPO_AQUECIMENTO_NS) {
+            rodada.run();
+            aquecimento += palavras;
+        }
+
+        long[] duracoes = new long[RODADAS_MEDICAO];
+        for (int i = 0; i < RODADAS_MEDICAO; i++) {
+            long inicio = System.nanoTime();
+            rodada.run();
+            duracoes[i] = System.nanoTime() - inicio;
+        }
+
+        Arrays.sort(duracoes);
+        long mediana = duracoes[RODADAS_MEDICAO / 2];
+
+        return String.format(Locale.ROOT,
+                "{\"implementacao\": \"%s\", \"automatos\": %d, \"estados\": %d, \"alfabeto\": %d, " +
+                "\"palavras\": %d, \"aquecimento\": %d, \"primeiraRodadaMs\": %.1f, " +
+                "\"palavrasPorSegundo\": %.1f, \"latenciaMediaNs\": %.1f}",
+                implementacao, quantidade, ESTADOS_UNIDOS, ALFABETO_UNIDOS, palavras, aquecimento,
+                primeiraRodada / 1e6, palavras / (mediana / 1e9), (double) mediana / palavras);
+    }
+
+    /**
+     * <p>Mede uma implementação sobre uma carga de trabalho</p>
+     *
+     * @param implementacao a ser medida
+     * @param afn da carga de trabalho
+     * @param palavras da carga de trabalho
+     * @param carga parâmetros usados para gerar o autômato
+     * @param aceitas quantidade de palavras aceitas pelo autômato
+     * @return o resultado da medição como um objeto JSON
+     */
+    private static String mede(Processavel implementacao, AFN afn, ArrayList<String> palavras, double[] carga,
+                               int aceitas) {
+        int aquecimento = 0;
+        long inicioAquecimento = System.nanoTime();
+
+        while (aquecimento < CHAMADAS_AQUECIMENTO || System.nanoTime() - inicioAquecimento < TEMPO_AQUECIMENTO_NS) {
+            for (String palavra : palavras) implementacao.processaEntrada(afn, palavra);
+            aquecimento += palavras.size();
+        }
+
+        long[] latencias = new long[palavras.size() * RODADAS_MEDICAO];
+        long[] duracoes = new long[RODADAS_MEDICAO];
+        int l = 0;
+
+        long bytesAntes = bytesAlocados();
+
+        for (int rodada = 0; rodada < RODADAS_MEDICAO; rodada++) {
+            long inicio = System.nanoTime();
+
+            for (String palavra : palavras) {
+                long antes = System.nanoTime();
+                implementacao.processaEntrada(afn, palavra);
+                latencias[l++] = System.nanoTime() - antes;
+            }
+
+            duracoes[rodada] = System.nanoTime() - inicio;
+        }
+
+        long bytesDepois = bytesAlocados();
+
+        Arrays.sort(latencias);
+        Arrays.sort(duracoes);
+        long mediana = duracoes[RODADAS_MEDICAO / 2];
+
+        return String.format(Locale.ROOT,
+                "{\"implementacao\": \"%s\", \"estados\": %d, \"alfabeto\": %d, \"naoDeterminismo\": %.2f, " +
+                "\"densidadeFinais\": %.2f, \"palavras\": %d, \"aceitas\": %d, \"aquecimento\": %d, " +
+                "\"palavrasPorSegundo\": %.1f, \"latenciaMediaNs\": %.1f, \"latenciaP50Ns\": %d, " +
+                "\"latenciaP99Ns\": %d, \"bytesPorPalavra\": %.1f}",
+                implementacao.getClass().getSimpleName(), (int) carga[0], (int) carga[1], carga[2], carga[3],
+                palavras.size(), aceitas, aquecimento, palavras.size() / (mediana / 1e9),
+                (double) mediana / palavras.size(), latencias[latencias.length / 2],
+                latencias[latencias.length * 99 / 100],
+                bytesAntes < 0 ? -1.0 : (double) (bytesDepois - bytesAntes) / latencias.length);
+    }
+
+    /**
+     * <p>Resgata quantos bytes a thread atual já alocou, quando a JVM oferece essa medição</p>
+     *
+     * @return os bytes alocados ou -1 caso a medição não seja suportada
+     */
+    private static long bytesAlocados() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if(threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1L;
+    }
+
+    /**
+     * <p>Grava o relatório JSON com todas as medições</p>
+     *
+     * @param arquivo de saída
+     * @param versao sendo medida
+     * @param semente usada para gerar as cargas de trabalho
+     * @param resultados de cada medição como objetos JSON
+     * @throws IOException caso o arquivo não possa ser gravado
+     */
+    private static void gravaRelatorio(String arquivo, String versao, long semente, ArrayList<String> resultados)
+            throws IOException {
+        Writer saida = new OutputStreamWriter(new FileOutputStream(arquivo), StandardCharsets.UTF_8);
+
+        try {
+            saida.write("{\n");
+            saida.write("  \"versao\": \"" + versao.replace("\\", "\\\\").replace("\"", "\\\"") + "\",\n");
+            saida.write("  \"semente\": " + semente + ",\n");
+            saida.write("  \"java\": \"" + System.getProperty("java.version") + "\",\n");
+            saida.write("  \"resultados\": [\n");
+            for (int i = 0; i < resultados.size(); i++) {
+                saida.write("    " + resultados.get(i) + (i + 1 < resultados.size() ? ",\n" : "\n"));
+            }
+            saida.write("  ]\n");
+            saida.write("}\n");
+        } finally {
+            saida.close();
+        }
+    }
+}
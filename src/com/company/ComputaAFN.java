@@ -60,7 +60,7 @@ public class ComputaAFN implements Processavel {
             if(verificaSePalavraVazia(palavra)) return;
 
             mPalavra = palavra;
-            mPalavraLen = mPalavra.length();
+            mPalavraLen = mPalavra.codePointCount(0, mPalavra.length());
             mMensagem = "";
 
             mEstadosAtuais = new HashSet<String>();
@@ -206,14 +206,16 @@ public class ComputaAFN implements Processavel {
     /**
      * <p>Remove um símbolo da palavra, caso seja o último caractere coloca a palavra vazia na palavra sendo precessada
      * pelo autômato</p>
+     * <p>Cada símbolo é um code point, de forma que pares substitutos do UTF-16 não são separados</p>
      */
     private void removeUmSimbolo() {
         if (mPalavraLen == 1) {
             mSimbolo = mPalavra;
             mPalavra = "ε";
         } else {
-            mSimbolo = mPalavra.substring(0, 1);
-            mPalavra = mPalavra.substring(1);
+            int fimSimbolo = mPalavra.offsetByCodePoints(0, 1);
+            mSimbolo = mPalavra.substring(0, fimSimbolo);
+            mPalavra = mPalavra.substring(fimSimbolo);
         }
 
         mPalavraLen--;
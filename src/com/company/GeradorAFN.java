@@ -0,0 +1,235 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * <p>Gera autômatos aleatórios e conjuntos de palavras para testar o desempenho da computação</p>
+ * <p>A mesma semente sempre gera os mesmos autômatos e as mesmas palavras, de forma que os resultados de versões
+ * diferentes do programa podem ser comparados</p>
+ *
+ * @author goislimat
+ */
+public class GeradorAFN {
+
+    /** Quantidade máxima de tentativas por palavra rejeitada antes de desistir */
+    private static final int TENTATIVAS_POR_PALAVRA = 1000;
+
+    /** Gerador de números aleatórios */
+    private Random mRandom;
+
+    /**
+     * <p>Cria o gerador a partir de uma semente</p>
+     *
+     * @param semente dos números aleatórios
+     */
+    public GeradorAFN(long semente) {
+        mRandom = new Random(semente);
+    }
+
+    /**
+     * <p>Gera um autômato aleatório com uma regra de produção para cada par de estado e símbolo, como as que são
+     * informadas pelo usuário em {@link Main}</p>
+     *
+     * @param quantidadeEstados do autômato
+     * @param tamanhoAlfabeto quantidade de símbolos do alfabeto
+     * @param grauNaoDeterminismo média de destinos distintos por transição, limitada à quantidade de estados. 0 faz
+     *                            todas as transições serem indefinidas e valores entre 0 e 1 misturam transições
+     *                            indefinidas e determinísticas
+     * @param densidadeFinais probabilidade de cada estado ser final, ao menos um estado sempre é final
+     * @return o autômato gerado
+     * @throws Exception caso o autômato gerado seja inválido
+     */
+    public AFN geraAutomato(int quantidadeEstados, int tamanhoAlfabeto, double grauNaoDeterminismo,
+                            double densidadeFinais) throws Exception {
+        String[] alfabeto = new String[tamanhoAlfabeto];
+        for (int i = 0; i < tamanhoAlfabeto; i++) alfabeto[i] = simbolo(i);
+
+        String[] estados = new String[quantidadeEstados];
+        for (int i = 0; i < quantidadeEstados; i++) estados[i] = "q" + i;
+
+        String[] sorteio = estados.clone();
+        ArrayList<RegraProducao> regrasProducao = new ArrayList<RegraProducao>();
+        for (String estado : estados) {
+            for (String simbolo : alfabeto) {
+                int quantidadeDestinos = (int) grauNaoDeterminismo;
+                if(mRandom.nextDouble() < grauNaoDeterminismo - quantidadeDestinos) quantidadeDestinos++;
+                quantidadeDestinos = Math.min(quantidadeDestinos, quantidadeEstados);
+
+                String[] destinos = new String[Math.max(1, quantidadeDestinos)];
+                destinos[0] = "-";
+                for (int i = 0; i < quantidadeDestinos; i++) {
+                    int j = i + mRandom.nextInt(quantidadeEstados - i);
+                    String troca = sorteio[i];
+                    sorteio[i] = sorteio[j];
+                    sorteio[j] = troca;
+                    destinos[i] = sorteio[i];
+                }
+
+                regrasProducao.add(new RegraProducao(estado, simbolo, destinos));
+            }
+        }
+
+        ArrayList<String> estadosFinais = new ArrayList<String>();
+        for (String estado : estados) {
+            if(mRandom.nextDouble() < densidadeFinais) estadosFinais.add(estado);
+        }
+        if(estadosFinais.isEmpty()) estadosFinais.add(estados[mRandom.nextInt(quantidadeEstados)]);
+
+        return new AFN(alfabeto, estados, regrasProducao, estados[0], estadosFinais.toArray(new String[0]));
+    }
+
+    /**
+     * <p>Gera o símbolo de uma posição do alfabeto: as letras minúsculas e depois code points a partir de U+0100</p>
+     *
+     * @param posicao do símbolo no alfabeto
+     * @return o símbolo
+     */
+    private String simbolo(int posicao) {
+        int codePoint = posicao < 26 ? 'a' + posicao : 0x100 + posicao;
+        return new String(Character.toChars(codePoint));
+    }
+
+    /**
+     * <p>Gera um conjunto de palavras com uma proporção escolhida de palavras aceitas pelo autômato</p>
+     * <p>As palavras aceitas são geradas percorrendo transições aleatórias a partir do estado inicial até um estado
+     * final. As rejeitadas são sorteadas ao acaso e descartadas quando o autômato as aceita. Quando o autômato não
+     * aceita ou não rejeita palavras suficientes, o conjunto é completado com palavras do outro tipo</p>
+     *
+     * @param afn que deve aceitar ou rejeitar as palavras
+     * @param quantidade de palavras
+     * @param proporcaoAceitas entre 0 e 1
+     * @param tamanhoMaximo de cada palavra, em símbolos
+     * @return as palavras geradas
+     */
+    public ArrayList<String> geraPalavras(AFN afn, int quantidade, double proporcaoAceitas, int tamanhoMaximo) {
+        HashMap<String, ArrayList<RegraProducao>> regrasPorOrigem = new HashMap<String, ArrayList<RegraProducao>>();
+        for (RegraProducao regra : afn.getRegrasProducao()) {
+            if(!temDestinoDefinido(regra)) continue;
+
+            if(!regrasPorOrigem.containsKey(regra.getOrigem())) {
+                regrasPorOrigem.put(regra.getOrigem(), new ArrayList<RegraProducao>());
+            }
+            regrasPorOrigem.get(regra.getOrigem()).add(regra);
+        }
+
+        ArrayList<String> palavras = new ArrayList<String>();
+        int aceitas = (int) Math.round(quantidade * proporcaoAceitas);
+
+        for (int i = 0; i < quantidade; i++) {
+            String palavra = i < aceitas ? palavraAceita(afn, regrasPorOrigem, tamanhoMaximo) : null;
+            if(palavra == null) palavra = palavraRejeitada(afn, tamanhoMaximo);
+            if(palavra == null) palavra = palavraAceita(afn, regrasPorOrigem, tamanhoMaximo);
+            if(palavra == null) palavra = palavraAleatoria(afn, tamanhoMaximo);
+
+            palavras.add(palavra);
+        }
+
+        for (int i = palavras.size() - 1; i > 0; i--) {
+            int j = mRandom.nextInt(i + 1);
+            String troca = palavras.get(i);
+            palavras.set(i, palavras.get(j));
+            palavras.set(j, troca);
+        }
+
+        return palavras;
+    }
+
+    /**
+     * <p>Percorre transições aleatórias a partir do estado inicial e devolve a palavra lida ao parar em um estado
+     * final</p>
+     *
+     * @param afn que deve aceitar a palavra
+     * @param regrasPorOrigem regras de produção definidas agrupadas pelo estado de origem
+     * @param tamanhoMaximo da palavra, em símbolos
+     * @return a palavra aceita ou null caso nenhuma tenha sido encontrada
+     */
+    private String palavraAceita(AFN afn, HashMap<String, ArrayList<RegraProducao>> regrasPorOrigem,
+                                 int tamanhoMaximo) {
+        for (int tentativa = 0; tentativa < TENTATIVAS_POR_PALAVRA; tentativa++) {
+            int tamanho = 1 + mRandom.nextInt(tamanhoMaximo);
+            StringBuilder palavra = new StringBuilder();
+            String estado = afn.getEstadoIncial();
+
+            for (int i = 0; i < tamanho; i++) {
+                ArrayList<RegraProducao> regras = regrasPorOrigem.get(estado);
+                if(regras == null) break;
+
+                RegraProducao regra = regras.get(mRandom.nextInt(regras.size()));
+                palavra.append(sorteiaLeitura(regra.getSimbolo()));
+
+                do {
+                    estado = regra.getDestinos()[mRandom.nextInt(regra.getDestinos().length)];
+                } while (estado.equals("-"));
+            }
+
+            if(afn.reconhece(palavra.toString())) return palavra.toString();
+        }
+
+        return null;
+    }
+
+    /**
+     * <p>Verifica se a regra tem ao menos um destino que não seja a transição indefinida '-'</p>
+     *
+     * @param regra de produção
+     * @return true caso haja ao menos um estado de destino
+     */
+    private boolean temDestinoDefinido(RegraProducao regra) {
+        for (String destino : regra.getDestinos()) {
+            if(!destino.equals("-")) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * <p>Sorteia palavras até encontrar uma que o autômato rejeite</p>
+     *
+     * @param afn que deve rejeitar a palavra
+     * @param tamanhoMaximo da palavra, em símbolos
+     * @return a palavra rejeitada ou null caso nenhuma tenha sido encontrada
+     */
+    private String palavraRejeitada(AFN afn, int tamanhoMaximo) {
+        for (int tentativa = 0; tentativa < TENTATIVAS_POR_PALAVRA; tentativa++) {
+            String palavra = palavraAleatoria(afn, tamanhoMaximo);
+            if(!afn.reconhece(palavra)) return palavra;
+        }
+
+        return null;
+    }
+
+    /**
+     * <p>Sorteia uma palavra com símbolos do alfabeto do autômato</p>
+     *
+     * @param afn de onde vem o alfabeto
+     * @param tamanhoMaximo da palavra, em símbolos
+     * @return a palavra sorteada
+     */
+    private String palavraAleatoria(AFN afn, int tamanhoMaximo) {
+        String[] alfabeto = afn.getAlfabeto();
+        int tamanho = 1 + mRandom.nextInt(tamanhoMaximo);
+        StringBuilder palavra = new StringBuilder();
+
+        for (int i = 0; i < tamanho; i++) {
+            palavra.append(sorteiaLeitura(alfabeto[mRandom.nextInt(alfabeto.length)]));
+        }
+
+        return palavra.toString();
+    }
+
+    /**
+     * <p>Sorteia um trecho de entrada lido pelo símbolo, um code point qualquer quando o símbolo é um intervalo</p>
+     *
+     * @param simbolo do alfabeto
+     * @return o trecho lido pelo símbolo
+     */
+    private String sorteiaLeitura(String simbolo) {
+        int[] intervalo = RegraProducao.intervaloDe(simbolo);
+        if(intervalo == null) return simbolo;
+
+        int codePoint = intervalo[0] + mRandom.nextInt(intervalo[1] - intervalo[0] + 1);
+        return new String(Character.toChars(codePoint));
+    }
+}
@@ -41,6 +41,9 @@ public class Main {
     /** Comando para retornar ao menu principal */
     private static final String REFEFINIR_AUTOMATO = "<<";
 
+    /** Comando para alterar uma transição sem informar o autômato novamente */
+    private static final String ALTERAR_TRANSICAO = "alterar";
+
     /** Comando para sair do programa */
     private static final String ENCERRAR_PROGRAMA = "exit";
 
@@ -112,6 +115,8 @@ public class Main {
                 "dada a regra de produção descrita (não são necessários espaços).\nEx: δ(q0, a) = q0,q1 ou q0, q1");
         System.out.println("\n4- Se o estado tiver uma transição indefinida para o símbolo preencha com '-'.\n" +
                 "Ex: δ(q0, a) =  -");
+        System.out.println("\n5- Um intervalo de caracteres pode ser usado como um único símbolo do alfabeto.\n" +
+                "Ex: ∑ = [a-z], [0-9]");
         System.out.print("\nPressione [ENTER] para sair.");
         s.nextLine();
     }
@@ -200,15 +205,40 @@ public class Main {
         System.out.print("\nInforme" +
                 "\nA palavra a ser computada pelo autômato ou " +
                 "\nEntre com '<<' para informar novamente os parâmetros do autômato ou" +
+                "\nEntre com 'alterar' para redefinir uma transição do autômato ou" +
                 "\nEntre com 'exit' para sair do programa: ");
         String palavra = s.nextLine();
 
         if(palavra.equals(Main.REFEFINIR_AUTOMATO)) {
             iniciaPrograma();
+        } else if(palavra.equals(Main.ALTERAR_TRANSICAO)) {
+            alteraTransicao();
+            return;
         } else if(palavra.equals(Main.ENCERRAR_PROGRAMA)) {
             exit(0);
         }
 
         new ComputaAFN().processaEntrada(mAutomato, palavra);
     }
+
+    /**
+     * <p>Lê uma única transição e a aplica sobre o autômato atual, sem que os demais parâmetros precisem ser
+     * informados novamente</p>
+     */
+    private void alteraTransicao() {
+        System.out.print("Entre com o estado de origem: ");
+        String origem = s.nextLine().replace(" ", "");
+
+        System.out.print("Entre com o símbolo lido: ");
+        String simbolo = s.nextLine().replace(" ", "");
+
+        System.out.print("δ(" + origem + ", " + simbolo + ") = ");
+        String[] producoes = s.nextLine().replace(" ", "").split(",");
+
+        try {
+            ((AFN) mAutomato).defineTransicao(origem, simbolo, producoes);
+        } catch (Exception e) {
+            System.out.println(Main.ANSI_RED + e.getMessage() + Main.ANSI_RESET);
+        }
+    }
 }
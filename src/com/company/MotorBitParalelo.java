@@ -0,0 +1,402 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * <p>Motor de simulação bit-paralelo (estilo Shift-And) para autômatos com até 64 estados</p>
+ * <p>Cada estado recebe um bit de um <code>long</code>, de forma que o conjunto de estados atuais inteiro cabe em uma
+ * única palavra de máquina. Para cada símbolo é pré-computada uma tabela que, dado um byte do conjunto de estados
+ * atuais, devolve a união dos destinos de todos os estados daquele byte. Assim um passo da computação se resume a
+ * no máximo oito consultas à tabela combinadas com OU bit a bit</p>
+ * <p>As tabelas são montadas por classe de equivalência de símbolos, e não por símbolo, ver
+ * {@link AlfabetoComprimido}</p>
+ * <p>As alterações do autômato refazem apenas as tabelas das classes afetadas. Tabelas, alfabeto e estados nunca
+ * são alterados no lugar: as versões novas são montadas à parte e depois publicadas, de forma que uma computação em
+ * andamento enxerga sempre uma versão consistente</p>
+ *
+ * @author goislimat
+ */
+public class MotorBitParalelo {
+
+    /** Quantidade máxima de estados suportada pelo motor */
+    public static final int MAXIMO_ESTADOS = 64;
+
+    /** Quantidade de bits de cada bloco da tabela de transições */
+    private static final int BITS_BLOCO = 8;
+
+    /** Quantidade de entradas de cada bloco da tabela de transições */
+    private static final int TAMANHO_BLOCO = 1 << BITS_BLOCO;
+
+    /**
+     * Estados do autômato, a posição no vetor é o bit que representa o estado, null para posições de estados
+     * removidos
+     */
+    private volatile String[] mEstados;
+
+    /** Índice de cada estado no vetor de estados */
+    private volatile HashMap<String, Integer> mIndiceEstados;
+
+    /** Tradução dos símbolos para as classes de equivalência */
+    private volatile AlfabetoComprimido mAlfabeto;
+
+    /** Destinos de cada estado para cada classe de símbolos, [classe][estado], usado apenas nas alterações */
+    private long[][] mLinhas;
+
+    /** Tabela de transições por blocos de estados, [classe][bloco * 256 + byte do conjunto de estados] */
+    private volatile long[][] mTabela;
+
+    /** Quantidade de blocos de 8 estados */
+    private int mBlocos;
+
+    /** Quantidade de classes quando as tabelas foram montadas por completo */
+    private int mClassesMontadas;
+
+    /** Máscara do estado inicial */
+    private long mMascaraInicial;
+
+    /** Máscara dos estados finais */
+    private volatile long mMascaraFinais;
+
+    /**
+     * <p>Monta as máscaras e tabelas de transição a partir das informações do autômato</p>
+     *
+     * @param alfabeto reconhecido, já agrupado em classes de equivalência
+     * @param estados existentes no autômato, no máximo 64
+     * @param estadoInicial único do autômato
+     * @param estadosFinais existentes no autômato
+     */
+    public MotorBitParalelo(AlfabetoComprimido alfabeto, String[] estados, String estadoInicial,
+                            String[] estadosFinais) {
+        if(estados.length > MAXIMO_ESTADOS) {
+            throw new IllegalArgumentException("O motor bit-paralelo suporta no máximo " + MAXIMO_ESTADOS +
+                    " estados");
+        }
+
+        mEstados = estados.clone();
+        mIndiceEstados = new HashMap<String, Integer>();
+        for (int i = 0; i < estados.length; i++) {
+            if(!mIndiceEstados.containsKey(estados[i])) mIndiceEstados.put(estados[i], i);
+        }
+
+        mAlfabeto = alfabeto;
+        mLinhas = new long[alfabeto.getQuantidadeClasses()][estados.length];
+        for (int classe = 0; classe < mLinhas.length; classe++) {
+            for (long par : alfabeto.getTransicoes(classe)) {
+                mLinhas[classe][(int) (par >>> 32)] |= 1L << (int) par;
+            }
+        }
+
+        mBlocos = (estados.length + BITS_BLOCO - 1) / BITS_BLOCO;
+        mTabela = new long[mLinhas.length][];
+        for (int classe = 0; classe < mLinhas.length; classe++) {
+            mTabela[classe] = montaTabela(mLinhas[classe]);
+        }
+        mClassesMontadas = mLinhas.length;
+
+        mMascaraInicial = mascaraDe(Arrays.asList(estadoInicial));
+        mMascaraFinais = mascaraDe(Arrays.asList(estadosFinais));
+    }
+
+    /**
+     * <p>Monta a tabela por blocos de uma classe de símbolos, onde cada entrada é a união dos destinos dos estados
+     * cujos bits estão ligados no byte correspondente</p>
+     *
+     * @param linhas destinos de cada estado para a classe
+     * @return a tabela de transições da classe
+     */
+    private long[] montaTabela(long[] linhas) {
+        long[] tabela = new long[mBlocos * TAMANHO_BLOCO];
+
+        for (int bloco = 0; bloco < mBlocos; bloco++) {
+            int base = bloco * TAMANHO_BLOCO;
+            for (int b = 1; b < TAMANHO_BLOCO; b++) {
+                int estado = bloco * BITS_BLOCO + Integer.numberOfTrailingZeros(b);
+                long destinos = estado < linhas.length ? linhas[estado] : 0L;
+                tabela[base + b] = tabela[base + (b & (b - 1))] | destinos;
+            }
+        }
+
+        return tabela;
+    }
+
+    /**
+     * <p>Avança a computação a partir de um conjunto de estados lendo um símbolo</p>
+     *
+     * @param estadosAtuais máscara com os estados correntes na computação
+     * @param classe do símbolo lido, obtida por {@link #classeDe(String)}
+     * @return a máscara com todos os estados atingidos, 0 caso nenhum seja atingido
+     */
+    public long avanca(long estadosAtuais, int classe) {
+        return avanca(mTabela, estadosAtuais, classe);
+    }
+
+    /**
+     * <p>Avança a computação usando uma versão já resgatada das tabelas de transição</p>
+     *
+     * @param tabelas de transição de todas as classes
+     * @param estadosAtuais máscara com os estados correntes na computação
+     * @param classe do símbolo lido
+     * @return a máscara com todos os estados atingidos, 0 caso nenhum seja atingido
+     */
+    private static long avanca(long[][] tabelas, long estadosAtuais, int classe) {
+        if(classe < 0) return 0L;
+
+        long[] tabela = tabelas[classe];
+        long resultado = 0L;
+
+        for (int base = 0; estadosAtuais != 0L; base += TAMANHO_BLOCO) {
+            resultado |= tabela[base + (int) (estadosAtuais & 0xFF)];
+            estadosAtuais >>>= BITS_BLOCO;
+        }
+
+        return resultado;
+    }
+
+    /**
+     * <p>Computa a palavra inteira, símbolo a símbolo, a partir do estado inicial</p>
+     *
+     * @param palavra a ser computada, cada code point é um símbolo
+     * @return true caso a palavra seja aceita pelo autômato
+     */
+    public boolean reconhece(CharSequence palavra) {
+        AlfabetoComprimido alfabeto = mAlfabeto;
+        long[][] tabelas = mTabela;
+        long estados = mMascaraInicial;
+
+        for (int i = 0; i < palavra.length() && estados != 0L; ) {
+            int codePoint = Character.codePointAt(palavra, i);
+            estados = avanca(tabelas, estados, alfabeto.classeDe(codePoint));
+            i += Character.charCount(codePoint);
+        }
+
+        return aceita(estados);
+    }
+
+    /**
+     * <p>Verifica se há ao menos um estado final no conjunto de estados</p>
+     *
+     * @param estados máscara de estados onde a computação parou
+     * @return true caso a interseção com os estados finais não seja vazia
+     */
+    public boolean aceita(long estados) {
+        return (estados & mMascaraFinais) != 0L;
+    }
+
+    /**
+     * <p>Resgata a classe de um símbolo na tabela de transições</p>
+     *
+     * @param simbolo a ser procurado
+     * @return a classe do símbolo ou -1 caso ele não faça parte do alfabeto
+     */
+    public int classeDe(String simbolo) {
+        return mAlfabeto.classeDe(simbolo);
+    }
+
+    /**
+     * <p>Resgata a classe de um code point na tabela de transições sem criar objetos</p>
+     *
+     * @param codePoint lido da entrada
+     * @return a classe do code point ou -1 caso ele não faça parte do alfabeto
+     */
+    public int classeDe(int codePoint) {
+        return mAlfabeto.classeDe(codePoint);
+    }
+
+    /**
+     * <p>Converte um conjunto de estados para a sua máscara de bits, o estado indefinido '-' é ignorado</p>
+     *
+     * @param estados a serem convertidos
+     * @return a máscara com os bits dos estados ligados
+     */
+    public long mascaraDe(Iterable<String> estados) {
+        long mascara = 0L;
+
+        for (String estado : estados) {
+            Integer indice = mIndiceEstados.get(estado);
+            if(indice != null) mascara |= 1L << indice;
+        }
+
+        return mascara;
+    }
+
+    /**
+     * <p>Converte uma máscara de bits de volta para o conjunto de estados</p>
+     *
+     * @param mascara com os bits dos estados ligados
+     * @return um HashSet com os estados da máscara
+     */
+    public HashSet<String> estadosDe(long mascara) {
+        HashSet<String> estados = new HashSet<String>();
+
+        while (mascara != 0L) {
+            estados.add(mEstados[Long.numberOfTrailingZeros(mascara)]);
+            mascara &= mascara - 1;
+        }
+
+        return estados;
+    }
+
+    /**
+     * <p>Redefine as transições de tudo o que o símbolo lê a partir das regras de produção, montando tabelas apenas
+     * para as classes novas do símbolo</p>
+     * <p>As classes substituídas não são descartadas. Quando elas passam a ser a maioria o motor pede para ser
+     * montado de novo do zero</p>
+     *
+     * @param simbolo que teve as transições alteradas
+     * @param regrasProducao já com a alteração aplicada
+     * @return false caso o motor precise ser montado novamente para liberar as classes substituídas
+     */
+    public boolean redefineSimbolo(String simbolo, ArrayList<RegraProducao> regrasProducao) {
+        AlfabetoComprimido alfabeto = mAlfabeto.isola(simbolo);
+        int quantidade = alfabeto.getQuantidadeClasses();
+
+        if(quantidade > 2 * mClassesMontadas + MAXIMO_ESTADOS) return false;
+
+        long[][] linhas = Arrays.copyOf(mLinhas, quantidade);
+        long[][] tabelas = Arrays.copyOf(mTabela, quantidade);
+
+        for (int classe = mLinhas.length; classe < quantidade; classe++) {
+            String representante = alfabeto.getRepresentante(classe);
+
+            linhas[classe] = new long[mEstados.length];
+            for (RegraProducao regra : regrasProducao) {
+                Integer origem = mIndiceEstados.get(regra.getOrigem());
+                if(origem != null && regra.le(representante)) {
+                    linhas[classe][origem] |= mascaraDe(Arrays.asList(regra.getDestinos()));
+                }
+            }
+
+            alfabeto.defineTransicoes(classe, paresDe(linhas[classe]));
+            tabelas[classe] = montaTabela(linhas[classe]);
+        }
+
+        mLinhas = linhas;
+        mTabela = tabelas;
+        mAlfabeto = alfabeto;
+
+        return true;
+    }
+
+    /**
+     * <p>Adiciona um estado sem transições, reaproveitando a posição de um estado removido quando houver</p>
+     * <p>Nenhuma tabela precisa ser refeita, apenas estendida quando o estado começa um novo bloco de 8 estados</p>
+     *
+     * @param estado a ser adicionado
+     * @return false caso o motor já esteja com 64 estados
+     */
+    public boolean adicionaEstado(String estado) {
+        if(mIndiceEstados.containsKey(estado)) return true;
+
+        int indice = Arrays.asList(mEstados).indexOf(null);
+        if(indice < 0) indice = mEstados.length;
+        if(indice >= MAXIMO_ESTADOS) return false;
+
+        String[] estados = Arrays.copyOf(mEstados, Math.max(mEstados.length, indice + 1));
+        estados[indice] = estado;
+
+        HashMap<String, Integer> indiceEstados = new HashMap<String, Integer>(mIndiceEstados);
+        indiceEstados.put(estado, indice);
+
+        for (int classe = 0; classe < mLinhas.length; classe++) {
+            if(mLinhas[classe].length < estados.length) {
+                mLinhas[classe] = Arrays.copyOf(mLinhas[classe], estados.length);
+            }
+        }
+
+        int blocos = (estados.length + BITS_BLOCO - 1) / BITS_BLOCO;
+        if(blocos > mBlocos) {
+            long[][] tabelas = new long[mTabela.length][];
+            for (int classe = 0; classe < tabelas.length; classe++) {
+                tabelas[classe] = Arrays.copyOf(mTabela[classe], blocos * TAMANHO_BLOCO);
+            }
+
+            mBlocos = blocos;
+            mTabela = tabelas;
+        }
+
+        mEstados = estados;
+        mIndiceEstados = indiceEstados;
+
+        return true;
+    }
+
+    /**
+     * <p>Remove um estado e todas as transições que partem ou chegam nele, refazendo apenas as tabelas das classes
+     * que tinham alguma dessas transições</p>
+     * <p>A posição do estado fica livre para o próximo estado adicionado</p>
+     *
+     * @param estado a ser removido, nunca o estado inicial
+     */
+    public void removeEstado(String estado) {
+        Integer indice = mIndiceEstados.get(estado);
+        if(indice == null) return;
+
+        long bit = 1L << indice;
+        AlfabetoComprimido alfabeto = mAlfabeto.semEstado(indice);
+        long[][] tabelas = mTabela.clone();
+
+        for (int classe = 0; classe < mLinhas.length; classe++) {
+            if(alfabeto.getTransicoes(classe) == mAlfabeto.getTransicoes(classe)) continue;
+
+            long[] linhas = mLinhas[classe].clone();
+            linhas[indice] = 0L;
+            for (int origem = 0; origem < linhas.length; origem++) linhas[origem] &= ~bit;
+
+            mLinhas[classe] = linhas;
+            tabelas[classe] = montaTabela(linhas);
+        }
+
+        String[] estados = mEstados.clone();
+        estados[indice] = null;
+
+        HashMap<String, Integer> indiceEstados = new HashMap<String, Integer>(mIndiceEstados);
+        indiceEstados.remove(estado);
+
+        mMascaraFinais &= ~bit;
+        mTabela = tabelas;
+        mAlfabeto = alfabeto;
+        mEstados = estados;
+        mIndiceEstados = indiceEstados;
+    }
+
+    /**
+     * <p>Liga ou desliga o bit de um estado na máscara de estados finais</p>
+     *
+     * @param estado a ser alterado
+     * @param ehFinal true para que o estado passe a ser final
+     */
+    public void defineFinal(String estado, boolean ehFinal) {
+        Integer indice = mIndiceEstados.get(estado);
+        if(indice == null) return;
+
+        if(ehFinal) {
+            mMascaraFinais |= 1L << indice;
+        } else {
+            mMascaraFinais &= ~(1L << indice);
+        }
+    }
+
+    /**
+     * <p>Converte as linhas de uma classe para os pares de transições guardados no alfabeto</p>
+     *
+     * @param linhas destinos de cada estado para a classe
+     * @return os pares codificados como (origem &lt;&lt; 32 | destino)
+     */
+    private static long[] paresDe(long[] linhas) {
+        int quantidade = 0;
+        for (long destinos : linhas) quantidade += Long.bitCount(destinos);
+
+        long[] pares = new long[quantidade];
+        int i = 0;
+        for (int origem = 0; origem < linhas.length; origem++) {
+            for (long destinos = linhas[origem]; destinos != 0L; destinos &= destinos - 1) {
+                pares[i++] = ((long) origem << 32) | Long.numberOfTrailingZeros(destinos);
+            }
+        }
+
+        return pares;
+    }
+}
@@ -0,0 +1,396 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Estágio de um pipeline reativo que recebe palavras e publica o {@link Veredito} de cada uma delas</p>
+ *
+ * <p>Toda a memória usada é limitada: nunca são pedidas ao publicador de palavras mais palavras do que cabem no
+ * buffer de entrada, e uma nova palavra só é pedida depois que o veredito de outra foi entregue ao buffer de saída.
+ * Quando o assinante dos vereditos é mais lento, o buffer de saída enche, os trabalhadores ficam bloqueados ao
+ * publicar e o processador para de pedir palavras, repassando a pressão para quem produz as palavras</p>
+ *
+ * <p>Nenhuma palavra é pedida antes de haver um assinante dos vereditos, de forma que nenhum veredito é descartado
+ * por falta de quem o receba. Quando todos os assinantes cancelam, a assinatura junto ao publicador de palavras
+ * também é cancelada. Um assinante que chega depois recebe apenas os vereditos publicados a partir dali</p>
+ *
+ * <p>As palavras são computadas por um número configurável de trabalhadores, cada um retirando um lote de palavras
+ * do buffer de entrada por vez. Com mais de um trabalhador a ordem dos vereditos pode ser diferente da ordem das
+ * palavras</p>
+ *
+ * <p>Os pedidos e o cancelamento junto ao publicador de palavras nunca são feitos ao mesmo tempo: quem quer pedir
+ * palavras apenas soma a quantidade à demanda pendente, e uma única thread por vez repassa ao publicador a demanda
+ * acumulada ou o cancelamento</p>
+ *
+ * @author goislimat
+ */
+public class ProcessadorPalavras extends SubmissionPublisher<Veredito> implements Flow.Processor<String, Veredito> {
+
+    /** Autômato que computa as palavras */
+    private AFN mAfn;
+
+    /** Quantidade máxima de trabalhadores computando palavras ao mesmo tempo */
+    private int mParalelismo;
+
+    /** Quantidade máxima de palavras retiradas do buffer de entrada por vez */
+    private int mTamanhoLote;
+
+    /** Buffer de palavras recebidas e ainda não computadas */
+    private ArrayBlockingQueue<String> mFila;
+
+    /** Trabalhadores que computam as palavras */
+    private ExecutorService mTrabalhadores;
+
+    /** Quantidade de trabalhadores em execução */
+    private AtomicInteger mAtivos = new AtomicInteger();
+
+    /** Indica se o processador já foi encerrado */
+    private AtomicBoolean mEncerrado = new AtomicBoolean();
+
+    /** Assinatura junto ao publicador de palavras */
+    private volatile Flow.Subscription mAssinatura;
+
+    /** Indica se o publicador de palavras já terminou de publicar */
+    private volatile boolean mEntradaConcluida;
+
+    /** Quantidade de assinantes dos vereditos que ainda não cancelaram nem terminaram */
+    private AtomicInteger mAssinantes = new AtomicInteger();
+
+    /** Indica se as primeiras palavras já foram pedidas ao publicador */
+    private AtomicBoolean mDemandaIniciada = new AtomicBoolean();
+
+    /** Quantidade de palavras pedidas e ainda não repassadas ao publicador */
+    private AtomicLong mDemandaPendente = new AtomicLong();
+
+    /** Indica se a assinatura junto ao publicador deve ser cancelada */
+    private volatile boolean mCancelamentoPendente;
+
+    /** Indica se a assinatura junto ao publicador já foi cancelada. Só é acessado por quem repassa a demanda */
+    private boolean mCancelado;
+
+    /** Quantidade de avisos de demanda ou cancelamento ainda não tratados por quem repassa a demanda */
+    private AtomicInteger mAvisos = new AtomicInteger();
+
+    /** Capacidade do buffer de entrada, em palavras */
+    private int mCapacidade;
+
+    /**
+     * <p>Cria o processador com buffers limitados</p>
+     *
+     * @param afn que deve computar as palavras
+     * @param executor que entrega os vereditos aos assinantes
+     * @param paralelismo quantidade máxima de trabalhadores computando palavras ao mesmo tempo
+     * @param tamanhoLote quantidade máxima de palavras retiradas do buffer de entrada por vez
+     * @param capacidade dos buffers de entrada e de saída, em palavras
+     */
+    public ProcessadorPalavras(AFN afn, Executor executor, int paralelismo, int tamanhoLote, int capacidade) {
+        super(executor, capacidade);
+
+        if(paralelismo < 1 || tamanhoLote < 1 || capacidade < 1) {
+            throw new IllegalArgumentException("Paralelismo, tamanho do lote e capacidade devem ser positivos");
+        }
+
+        mAfn = afn;
+        mParalelismo = paralelismo;
+        mTamanhoLote = tamanhoLote;
+        mCapacidade = capacidade;
+        mFila = new ArrayBlockingQueue<String>(capacidade);
+        mTrabalhadores = Executors.newFixedThreadPool(paralelismo, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable tarefa) {
+                Thread thread = new Thread(tarefa, "processador-palavras");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * <p>Inscreve um assinante dos vereditos. O primeiro assinante libera o pedido das primeiras palavras</p>
+     *
+     * @param assinante dos vereditos
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Veredito> assinante) {
+        mAssinantes.incrementAndGet();
+        super.subscribe(new AssinanteVereditos(assinante));
+        iniciaDemanda();
+    }
+
+    /**
+     * <p>Guarda a assinatura junto ao publicador de palavras. As palavras só são pedidas quando houver um assinante
+     * dos vereditos</p>
+     *
+     * @param assinatura junto ao publicador de palavras
+     */
+    @Override
+    public void onSubscribe(Flow.Subscription assinatura) {
+        if(mAssinatura != null || mEncerrado.get()) {
+            assinatura.cancel();
+            return;
+        }
+
+        mAssinatura = assinatura;
+        repassaDemanda();
+    }
+
+    /**
+     * <p>Pede ao publicador tantas palavras quanto cabem no buffer de entrada, assim que houver ao menos um assinante
+     * dos vereditos</p>
+     */
+    private void iniciaDemanda() {
+        if(mAssinantes.get() > 0 && mDemandaIniciada.compareAndSet(false, true)) {
+            pedePalavras(mCapacidade);
+        }
+    }
+
+    /**
+     * <p>Soma palavras à demanda pendente e a repassa ao publicador</p>
+     *
+     * @param quantidade de palavras a serem pedidas
+     */
+    private void pedePalavras(long quantidade) {
+        mDemandaPendente.addAndGet(quantidade);
+        repassaDemanda();
+    }
+
+    /**
+     * <p>Marca a assinatura junto ao publicador para ser cancelada e repassa o cancelamento</p>
+     */
+    private void cancelaEntrada() {
+        mCancelamentoPendente = true;
+        repassaDemanda();
+    }
+
+    /**
+     * <p>Repassa ao publicador a demanda pendente ou o cancelamento. Apenas uma thread por vez faz o repasse; as
+     * demais apenas avisam que há algo novo e a thread que está repassando volta a verificar antes de sair</p>
+     * <p>Enquanto não houver a assinatura junto ao publicador a demanda continua pendente</p>
+     */
+    private void repassaDemanda() {
+        if(mAvisos.getAndIncrement() != 0) return;
+
+        int avisos = 1;
+        do {
+            Flow.Subscription assinatura = mAssinatura;
+
+            if(assinatura != null && !mCancelado) {
+                if(mCancelamentoPendente) {
+                    mCancelado = true;
+                    assinatura.cancel();
+                } else {
+                    long demanda = mDemandaPendente.getAndSet(0);
+                    if(demanda > 0) assinatura.request(demanda);
+                }
+            }
+
+            avisos = mAvisos.addAndGet(-avisos);
+        } while (avisos != 0);
+    }
+
+    /**
+     * <p>Registra a saída de um assinante dos vereditos. Quando não resta nenhum, a assinatura junto ao publicador de
+     * palavras é cancelada e o processador é encerrado</p>
+     */
+    private void assinanteSaiu() {
+        if(mAssinantes.decrementAndGet() > 0 || !mEncerrado.compareAndSet(false, true)) return;
+
+        cancelaEntrada();
+
+        mFila.clear();
+        mTrabalhadores.shutdown();
+        close();
+    }
+
+    /**
+     * <p>Coloca a palavra no buffer de entrada e acorda um trabalhador caso haja algum livre</p>
+     *
+     * @param palavra a ser computada
+     */
+    @Override
+    public void onNext(String palavra) {
+        if(!mFila.offer(palavra)) {
+            cancelaEntrada();
+            encerraComErro(new IllegalStateException("O publicador enviou mais palavras do que foram pedidas"));
+            return;
+        }
+
+        agendaTrabalhador();
+    }
+
+    /**
+     * <p>Encerra os vereditos com o mesmo erro recebido do publicador de palavras</p>
+     *
+     * @param erro recebido do publicador
+     */
+    @Override
+    public void onError(Throwable erro) {
+        encerraComErro(erro);
+    }
+
+    /**
+     * <p>Marca que não virão mais palavras. Os vereditos são encerrados assim que as palavras restantes forem
+     * computadas</p>
+     */
+    @Override
+    public void onComplete() {
+        mEntradaConcluida = true;
+        encerraSeConcluido();
+    }
+
+    /**
+     * <p>Coloca mais um trabalhador em execução, caso haja palavras esperando e o paralelismo permita</p>
+     */
+    private void agendaTrabalhador() {
+        while (!mFila.isEmpty() && !mEncerrado.get()) {
+            int ativos = mAtivos.get();
+            if(ativos >= mParalelismo) return;
+
+            if(mAtivos.compareAndSet(ativos, ativos + 1)) {
+                mTrabalhadores.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        trabalha();
+                    }
+                });
+                return;
+            }
+        }
+    }
+
+    /**
+     * <p>Retira lotes do buffer de entrada até esvaziá-lo, publicando o veredito de cada palavra e pedindo ao
+     * publicador uma nova palavra para cada veredito publicado</p>
+     * <p>A publicação bloqueia enquanto o buffer de saída estiver cheio</p>
+     */
+    private void trabalha() {
+        ArrayList<String> lote = new ArrayList<String>(mTamanhoLote);
+
+        try {
+            while (!mEncerrado.get()) {
+                lote.clear();
+                mFila.drainTo(lote, mTamanhoLote);
+                if(lote.isEmpty()) break;
+
+                for (String palavra : lote) {
+                    submit(new Veredito(palavra, mAfn.reconhece(palavra)));
+                }
+
+                pedePalavras(lote.size());
+            }
+        } catch (RuntimeException e) {
+            cancelaEntrada();
+            encerraComErro(e);
+        } finally {
+            mAtivos.decrementAndGet();
+        }
+
+        if(!mFila.isEmpty()) {
+            agendaTrabalhador();
+        } else {
+            encerraSeConcluido();
+        }
+    }
+
+    /**
+     * <p>Encerra os vereditos caso o publicador já tenha terminado e todas as palavras tenham sido computadas</p>
+     */
+    private void encerraSeConcluido() {
+        if(mEntradaConcluida && mFila.isEmpty() && mAtivos.get() == 0 && mEncerrado.compareAndSet(false, true)) {
+            mTrabalhadores.shutdown();
+            close();
+        }
+    }
+
+    /**
+     * <p>Encerra os vereditos com erro, descartando as palavras que ainda não foram computadas</p>
+     *
+     * @param erro a ser repassado aos assinantes
+     */
+    private void encerraComErro(Throwable erro) {
+        if(mEncerrado.compareAndSet(false, true)) {
+            mFila.clear();
+            mTrabalhadores.shutdown();
+            closeExceptionally(erro);
+        }
+    }
+
+    /**
+     * <p>Repassa os vereditos a um assinante e avisa o processador quando ele cancela ou termina</p>
+     */
+    private class AssinanteVereditos implements Flow.Subscriber<Veredito>, Flow.Subscription {
+
+        /** Assinante que recebe os vereditos */
+        private Flow.Subscriber<? super Veredito> mDestino;
+
+        /** Assinatura junto ao processador */
+        private Flow.Subscription mOrigem;
+
+        /** Indica se a saída do assinante já foi registrada */
+        private AtomicBoolean mSaiu = new AtomicBoolean();
+
+        /**
+         * @param destino assinante que recebe os vereditos
+         */
+        AssinanteVereditos(Flow.Subscriber<? super Veredito> destino) {
+            mDestino = destino;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription origem) {
+            mOrigem = origem;
+            mDestino.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(Veredito veredito) {
+            mDestino.onNext(veredito);
+        }
+
+        @Override
+        public void onError(Throwable erro) {
+            try {
+                mDestino.onError(erro);
+            } finally {
+                sai();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                mDestino.onComplete();
+            } finally {
+                sai();
+            }
+        }
+
+        @Override
+        public void request(long quantidade) {
+            mOrigem.request(quantidade);
+        }
+
+        @Override
+        public void cancel() {
+            mOrigem.cancel();
+            sai();
+        }
+
+        /**
+         * <p>Registra a saída do assinante uma única vez</p>
+         */
+        private void sai() {
+            if(mSaiu.compareAndSet(false, true)) assinanteSaiu();
+        }
+    }
+}
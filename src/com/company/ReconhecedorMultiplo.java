@@ -0,0 +1,495 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * <p>Reconhece uma palavra em vários autômatos de uma só vez, lendo a palavra uma única vez</p>
+ * <p>Os autômatos são unidos em um único autômato cujos estados são os estados de todos eles, cada estado marcado
+ * com o autômato a que pertence. O alfabeto da união é agrupado em classes de equivalência uma única vez, então cada
+ * símbolo da entrada é decodificado e traduzido uma só vez para todos os autômatos</p>
+ * <p>Os estados da união são guardados em palavras de 64 bits, como em {@link MotorBitParalelo}, e os autômatos de
+ * até 64 estados são empacotados de forma que nenhum deles fique dividido entre duas palavras. Cada palavra avança
+ * então com as mesmas tabelas por blocos do motor bit-paralelo, e um passo custa algumas consultas por palavra em
+ * vez de uma por estado ativo. Autômatos com mais de 64 estados ocupam palavras inteiras e as transições entre
+ * palavras diferentes são seguidas uma a uma. Palavras cujos autômatos já rejeitaram a entrada deixam de ser
+ * visitadas</p>
+ * <p>O tamanho dos blocos é reduzido quando alfabeto e autômatos são grandes demais para tabelas de 256 entradas por
+ * byte, mantendo a memória das tabelas limitada</p>
+ * <p>Sobre o avanço por palavras há um cache limitado da construção de subconjuntos: cada conjunto de estados da
+ * união já atingido vira um estado determinístico, com o destino de cada classe de símbolos preenchido na primeira
+ * vez em que é calculado e com os autômatos que aceitam naquele ponto já separados. Entradas repetidas ou com
+ * prefixos comuns passam a custar uma consulta por símbolo, independente da quantidade de autômatos</p>
+ * <p>A união é montada com o conteúdo que os autômatos têm no momento da criação, alterações posteriores não são
+ * refletidas</p>
+ *
+ * @author goislimat
+ */
+public class ReconhecedorMultiplo {
+
+    /** Quantidade máxima de entradas somando as tabelas de todas as classes */
+    private static final long MAXIMO_ENTRADAS = 1L << 22;
+
+    /** Memória aproximada máxima do cache de conjuntos de estados, em bytes */
+    private static final long MAXIMO_BYTES_CACHE = 64L << 20;
+
+    /** Quantidade máxima de conjuntos de estados no cache */
+    private static final int MAXIMO_CONJUNTOS_CACHE = 1 << 16;
+
+    /** Quantidade de autômatos unidos */
+    private int mQuantidadeAutomatos;
+
+    /** Quantidade de palavras de 64 bits de um conjunto de estados */
+    private int mPalavras;
+
+    /** Tradução dos símbolos para as classes de equivalência da união */
+    private AlfabetoComprimido mAlfabeto;
+
+    /** Quantidade de bits de cada bloco das tabelas de transições: 8, 4, 2 ou 1 */
+    private int mBitsBloco;
+
+    /** Máscara que extrai um bloco de um conjunto de estados */
+    private long mMascaraBloco;
+
+    /** Quantidade de entradas de cada bloco das tabelas */
+    private int mTamanhoBloco;
+
+    /** Quantidade de entradas das tabelas para cada palavra de 64 bits */
+    private int mEntradasPorPalavra;
+
+    /** Tabela de transições por blocos de estados, [classe][palavra * entradas por palavra + bloco + valor] */
+    private long[][] mTabelas;
+
+    /** Estados com transições para outra palavra, [classe][palavra], null para classes sem essas transições */
+    private long[][] mMascarasSaltos;
+
+    /** Onde começam os destinos em outra palavra de cada estado, [classe][estado] */
+    private int[][] mIniciosSaltos;
+
+    /** Destinos em outra palavra de todos os estados em sequência, [classe][transição] */
+    private int[][] mDestinosSaltos;
+
+    /** Autômato a que pertence cada bit da união, -1 para bits não usados */
+    private int[] mDonos;
+
+    /** Máscara dos estados iniciais de todos os autômatos */
+    private long[] mMascaraInicial;
+
+    /** Máscara dos estados finais de todos os autômatos */
+    private long[] mMascaraFinais;
+
+    /** Indica se alguma classe tem transições entre palavras diferentes */
+    private boolean mTemSaltos;
+
+    /** Quantidade máxima de conjuntos de estados no cache */
+    private int mLimiteCache;
+
+    /** Posição no cache de cada conjunto de estados */
+    private HashMap<ConjuntoEstados, Integer> mIndiceCache = new HashMap<ConjuntoEstados, Integer>();
+
+    /** Conjuntos de estados do cache, o primeiro é o conjunto inicial */
+    private ArrayList<long[]> mConjuntosCache = new ArrayList<long[]>();
+
+    /** Palavras com algum estado ativo de cada conjunto do cache */
+    private ArrayList<int[]> mVivasCache = new ArrayList<int[]>();
+
+    /** Autômatos que aceitam em cada conjunto do cache */
+    private ArrayList<BitSet> mAceitosCache = new ArrayList<BitSet>();
+
+    /** Destino de cada classe a partir de cada conjunto do cache, -1 enquanto não for calculado */
+    private ArrayList<int[]> mTransicoesCache = new ArrayList<int[]>();
+
+    /**
+     * <p>Une os autômatos informados em uma única simulação</p>
+     *
+     * @param automatos a serem unidos, cada um identificado pela sua posição na lista
+     */
+    public ReconhecedorMultiplo(List<AFN> automatos) {
+        mQuantidadeAutomatos = automatos.size();
+
+        int[] deslocamentos = empacota(automatos);
+
+        String[] estados = new String[mPalavras * 64];
+        mDonos = new int[estados.length];
+        Arrays.fill(mDonos, -1);
+
+        ArrayList<RegraProducao> regras = new ArrayList<RegraProducao>();
+        LinkedHashSet<String> alfabeto = new LinkedHashSet<String>();
+        mMascaraInicial = new long[mPalavras];
+        mMascaraFinais = new long[mPalavras];
+
+        for (int k = 0; k < automatos.size(); k++) {
+            AFN afn = automatos.get(k);
+            String prefixo = k + ":";
+            String[] estadosAfn = afn.getEstados();
+            List<String> listaEstados = Arrays.asList(estadosAfn);
+
+            for (int i = 0; i < estadosAfn.length; i++) {
+                estados[deslocamentos[k] + i] = prefixo + estadosAfn[i];
+                mDonos[deslocamentos[k] + i] = k;
+            }
+
+            for (RegraProducao regra : afn.getRegrasProducao()) {
+                String[] destinos = new String[regra.getDestinos().length];
+                for (int i = 0; i < destinos.length; i++) {
+                    String destino = regra.getDestinos()[i];
+                    destinos[i] = destino.equals("-") ? destino : prefixo + destino;
+                }
+
+                regras.add(new RegraProducao(prefixo + regra.getOrigem(), regra.getSimbolo(), destinos));
+            }
+
+            alfabeto.addAll(Arrays.asList(afn.getAlfabeto()));
+            marca(mMascaraInicial, deslocamentos[k], listaEstados.indexOf(afn.getEstadoIncial()));
+            for (String estadoFinal : afn.getEstadosFinais()) {
+                marca(mMascaraFinais, deslocamentos[k], listaEstados.indexOf(estadoFinal));
+            }
+        }
+
+        mAlfabeto = new AlfabetoComprimido(alfabeto.toArray(new String[0]), estados, regras);
+        int classes = mAlfabeto.getQuantidadeClasses();
+
+        mBitsBloco = 8;
+        while (mBitsBloco > 1 && (long) classes * mPalavras * (64 / mBitsBloco << mBitsBloco) > MAXIMO_ENTRADAS) {
+            mBitsBloco >>= 1;
+        }
+        mTamanhoBloco = 1 << mBitsBloco;
+        mMascaraBloco = mTamanhoBloco - 1;
+        mEntradasPorPalavra = 64 / mBitsBloco * mTamanhoBloco;
+
+        mTabelas = new long[classes][];
+        mMascarasSaltos = new long[classes][];
+        mIniciosSaltos = new int[classes][];
+        mDestinosSaltos = new int[classes][];
+
+        for (int classe = 0; classe < classes; classe++) {
+            montaClasse(classe, mAlfabeto.getTransicoes(classe), estados.length);
+            if(mMascarasSaltos[classe] != null) mTemSaltos = true;
+        }
+
+        long bytesConjunto = 12L * mPalavras + 4L * classes + mQuantidadeAutomatos / 8 + 128;
+        mLimiteCache = (int) Math.max(1, Math.min(MAXIMO_CONJUNTOS_CACHE, MAXIMO_BYTES_CACHE / bytesConjunto));
+
+        int[] vivas = new int[mPalavras];
+        int quantidadeVivas = 0;
+        for (int p = 0; p < mPalavras; p++) {
+            if(mMascaraInicial[p] != 0L) vivas[quantidadeVivas++] = p;
+        }
+        guardaNoCache(mMascaraInicial.clone(), vivas, quantidadeVivas);
+    }
+
+    /**
+     * <p>Escolhe o primeiro bit da união de cada autômato. Os autômatos de até 64 estados vão para a primeira
+     * palavra de 64 bits em que ainda couberem inteiros, os maiores ocupam palavras inteiras a partir da próxima
+     * palavra livre</p>
+     *
+     * @param automatos a serem unidos
+     * @return o primeiro bit de cada autômato
+     */
+    private int[] empacota(List<AFN> automatos) {
+        int[] deslocamentos = new int[automatos.size()];
+        ArrayList<Integer> ocupados = new ArrayList<Integer>();
+
+        for (int k = 0; k < automatos.size(); k++) {
+            int quantidade = automatos.get(k).getEstados().length;
+
+            if(quantidade > 64) {
+                deslocamentos[k] = ocupados.size() * 64;
+                for (int i = 0; i < quantidade; i += 64) ocupados.add(64);
+                continue;
+            }
+
+            int palavra = 0;
+            while (palavra < ocupados.size() && ocupados.get(palavra) + quantidade > 64) palavra++;
+            if(palavra == ocupados.size()) ocupados.add(0);
+
+            deslocamentos[k] = palavra * 64 + ocupados.get(palavra);
+            ocupados.set(palavra, ocupados.get(palavra) + quantidade);
+        }
+
+        mPalavras = Math.max(1, ocupados.size());
+        return deslocamentos;
+    }
+
+    /**
+     * <p>Liga o bit de um estado em uma máscara da união</p>
+     *
+     * @param mascara da união
+     * @param deslocamento primeiro bit do autômato
+     * @param indice do estado no autômato, -1 caso o estado não exista
+     */
+    private static void marca(long[] mascara, int deslocamento, int indice) {
+        if(indice < 0) return;
+
+        int bit = deslocamento + indice;
+        mascara[bit >>> 6] |= 1L << bit;
+    }
+
+    /**
+     * <p>Monta a tabela por blocos de uma classe, com as transições dentro de cada palavra, e separa as transições
+     * que levam a outra palavra</p>
+     *
+     * @param classe de símbolos
+     * @param pares transições da classe, cada par codificado como (origem &lt;&lt; 32 | destino)
+     * @param quantidadeEstados quantidade de bits da união
+     */
+    private void montaClasse(int classe, long[] pares, int quantidadeEstados) {
+        long[] linhas = new long[quantidadeEstados];
+        int[] iniciosSaltos = new int[quantidadeEstados + 1];
+        int saltos = 0;
+
+        for (long par : pares) {
+            int origem = (int) (par >>> 32);
+            int destino = (int) par;
+
+            if(origem >>> 6 == destino >>> 6) {
+                linhas[origem] |= 1L << destino;
+            } else {
+                iniciosSaltos[origem + 1]++;
+                saltos++;
+            }
+        }
+
+        long[] tabela = new long[mPalavras * mEntradasPorPalavra];
+        for (int inicio = 0, estado = 0; inicio < tabela.length; inicio += mTamanhoBloco, estado += mBitsBloco) {
+            for (int b = 1; b < mTamanhoBloco; b++) {
+                tabela[inicio + b] = tabela[inicio + (b & (b - 1))] | linhas[estado + Integer.numberOfTrailingZeros(b)];
+            }
+        }
+        mTabelas[classe] = tabela;
+
+        if(saltos == 0) return;
+
+        long[] mascaraSaltos = new long[mPalavras];
+        for (int estado = 0; estado < quantidadeEstados; estado++) {
+            if(iniciosSaltos[estado + 1] > 0) mascaraSaltos[estado >>> 6] |= 1L << estado;
+            iniciosSaltos[estado + 1] += iniciosSaltos[estado];
+        }
+
+        int[] destinosSaltos = new int[saltos];
+        int[] proximo = Arrays.copyOf(iniciosSaltos, quantidadeEstados);
+        for (long par : pares) {
+            int origem = (int) (par >>> 32);
+            int destino = (int) par;
+            if(origem >>> 6 != destino >>> 6) destinosSaltos[proximo[origem]++] = destino;
+        }
+
+        mMascarasSaltos[classe] = mascaraSaltos;
+        mIniciosSaltos[classe] = iniciosSaltos;
+        mDestinosSaltos[classe] = destinosSaltos;
+    }
+
+    /**
+     * <p>Computa a palavra em todos os autômatos ao mesmo tempo, cada code point é um símbolo</p>
+     * <p>Enquanto os conjuntos de estados atingidos estiverem no cache, cada símbolo custa uma única consulta,
+     * qualquer que seja a quantidade de autômatos. Um conjunto novo é calculado pelo avanço por palavras de 64 bits e
+     * guardado no cache. Quando o cache enche ele não é esvaziado: os conjuntos já guardados, os primeiros a serem
+     * atingidos, continuam valendo, e o restante da palavra é computado apenas pelo avanço por palavras. As chamadas
+     * simultâneas são feitas uma de cada vez, pois compartilham o cache</p>
+     *
+     * @param palavra a ser computada
+     * @return as posições, na lista informada na criação, dos autômatos que aceitaram a palavra
+     */
+    public synchronized BitSet reconhece(CharSequence palavra) {
+        int estado = 0;
+        long[] atuais = null;
+        long[] saltos = null;
+        int[] vivas = null;
+        int quantidadeVivas = 0;
+
+        for (int i = 0; i < palavra.length(); ) {
+            int codePoint = Character.codePointAt(palavra, i);
+            i += Character.charCount(codePoint);
+
+            int classe = mAlfabeto.classeDe(codePoint);
+            if(classe < 0) return new BitSet(mQuantidadeAutomatos);
+
+            if(saltos == null && mTemSaltos) saltos = new long[mPalavras];
+
+            if(estado >= 0) {
+                int[] transicoes = mTransicoesCache.get(estado);
+                int proximo = transicoes[classe];
+
+                if(proximo < 0) {
+                    int[] vivasEstado = mVivasCache.get(estado);
+                    if(vivas == null) vivas = new int[mPalavras];
+                    System.arraycopy(vivasEstado, 0, vivas, 0, vivasEstado.length);
+
+                    atuais = mConjuntosCache.get(estado).clone();
+                    quantidadeVivas = avanca(atuais, vivas, vivasEstado.length, classe, saltos);
+
+                    proximo = guardaNoCache(atuais, vivas, quantidadeVivas);
+                    if(proximo >= 0) transicoes[classe] = proximo;
+                }
+
+                estado = proximo;
+                if(estado >= 0 && mVivasCache.get(estado).length == 0) break;
+            } else {
+                quantidadeVivas = avanca(atuais, vivas, quantidadeVivas, classe, saltos);
+                if(quantidadeVivas == 0) break;
+            }
+        }
+
+        if(estado >= 0) return (BitSet) mAceitosCache.get(estado).clone();
+
+        return aceitosDe(atuais, vivas, quantidadeVivas);
+    }
+
+    /**
+     * <p>Avança um conjunto de estados da união lendo um símbolo, visitando apenas as palavras de 64 bits com algum
+     * estado ativo</p>
+     *
+     * @param atuais conjunto de estados, substituído pelos estados atingidos
+     * @param vivas palavras com algum estado ativo, substituídas pelas que continuam ativas
+     * @param quantidadeVivas quantidade de palavras ativas
+     * @param classe do símbolo lido
+     * @param saltos máscara auxiliar vazia para as transições entre palavras, null caso não haja nenhuma
+     * @return a nova quantidade de palavras ativas
+     */
+    private int avanca(long[] atuais, int[] vivas, int quantidadeVivas, int classe, long[] saltos) {
+        long[] tabela = mTabelas[classe];
+        long[] mascaraSaltos = mMascarasSaltos[classe];
+        boolean saltou = false;
+        int restantes = 0;
+
+        for (int v = 0; v < quantidadeVivas; v++) {
+            int p = vivas[v];
+            long estados = atuais[p];
+            long resultado = 0L;
+
+            if(mascaraSaltos != null && (estados & mascaraSaltos[p]) != 0L) {
+                segueSaltos(classe, p, estados & mascaraSaltos[p], saltos);
+                saltou = true;
+            }
+
+            for (int base = p * mEntradasPorPalavra; estados != 0L; base += mTamanhoBloco) {
+                resultado |= tabela[base + (int) (estados & mMascaraBloco)];
+                estados >>>= mBitsBloco;
+            }
+
+            atuais[p] = resultado;
+            if(resultado != 0L) vivas[restantes++] = p;
+        }
+
+        if(!saltou) return restantes;
+
+        restantes = 0;
+        for (int p = 0; p < mPalavras; p++) {
+            atuais[p] |= saltos[p];
+            saltos[p] = 0L;
+            if(atuais[p] != 0L) vivas[restantes++] = p;
+        }
+
+        return restantes;
+    }
+
+    /**
+     * <p>Resgata os autômatos que aceitam a palavra quando a computação para no conjunto de estados informado</p>
+     *
+     * @param atuais conjunto de estados da união
+     * @param vivas palavras com algum estado ativo
+     * @param quantidadeVivas quantidade de palavras ativas
+     * @return as posições dos autômatos com algum estado final no conjunto
+     */
+    private BitSet aceitosDe(long[] atuais, int[] vivas, int quantidadeVivas) {
+        BitSet aceitos = new BitSet(mQuantidadeAutomatos);
+
+        for (int v = 0; v < quantidadeVivas; v++) {
+            int p = vivas[v];
+            for (long bits = atuais[p] & mMascaraFinais[p]; bits != 0L; bits &= bits - 1) {
+                aceitos.set(mDonos[(p << 6) + Long.numberOfTrailingZeros(bits)]);
+            }
+        }
+
+        return aceitos;
+    }
+
+    /**
+     * <p>Procura o conjunto de estados no cache e o guarda caso ainda não esteja lá e haja espaço</p>
+     *
+     * @param atuais conjunto de estados da união, guardado sem cópia
+     * @param vivas palavras com algum estado ativo
+     * @param quantidadeVivas quantidade de palavras ativas
+     * @return a posição do conjunto no cache ou -1 caso o cache esteja cheio
+     */
+    private int guardaNoCache(long[] atuais, int[] vivas, int quantidadeVivas) {
+        ConjuntoEstados conjunto = new ConjuntoEstados(atuais);
+
+        Integer existente = mIndiceCache.get(conjunto);
+        if(existente != null) return existente;
+        if(mConjuntosCache.size() >= mLimiteCache) return -1;
+
+        int[] transicoes = new int[mTabelas.length];
+        Arrays.fill(transicoes, -1);
+
+        int posicao = mConjuntosCache.size();
+        mIndiceCache.put(conjunto, posicao);
+        mConjuntosCache.add(atuais);
+        mVivasCache.add(Arrays.copyOf(vivas, quantidadeVivas));
+        mAceitosCache.add(aceitosDe(atuais, vivas, quantidadeVivas));
+        mTransicoesCache.add(transicoes);
+
+        return posicao;
+    }
+
+    /**
+     * <p>Segue as transições que levam a outra palavra a partir dos estados informados</p>
+     *
+     * @param classe do símbolo lido
+     * @param palavra de 64 bits onde estão os estados
+     * @param estados com transições para outra palavra
+     * @param destinos máscara da união onde os destinos são ligados
+     */
+    private void segueSaltos(int classe, int palavra, long estados, long[] destinos) {
+        int[] inicios = mIniciosSaltos[classe];
+        int[] saltos = mDestinosSaltos[classe];
+
+        for (long bits = estados; bits != 0L; bits &= bits - 1) {
+            int estado = (palavra << 6) + Long.numberOfTrailingZeros(bits);
+
+            for (int t = inicios[estado]; t < inicios[estado + 1]; t++) {
+                destinos[saltos[t] >>> 6] |= 1L << saltos[t];
+            }
+        }
+    }
+
+    /**
+     * <p>Resgata a quantidade de autômatos unidos</p>
+     *
+     * @return a quantidade de autômatos
+     */
+    public int getQuantidadeAutomatos() { return mQuantidadeAutomatos; }
+
+    /**
+     * <p>Conjunto de estados da união usado como chave do cache</p>
+     */
+    private static class ConjuntoEstados {
+
+        /** Bits dos estados */
+        private long[] mBits;
+
+        /** Hash dos bits, calculado uma única vez */
+        private int mHash;
+
+        /**
+         * @param bits dos estados, guardados sem cópia
+         */
+        ConjuntoEstados(long[] bits) {
+            mBits = bits;
+            mHash = Arrays.hashCode(bits);
+        }
+
+        @Override
+        public int hashCode() { return mHash; }
+
+        @Override
+        public boolean equals(Object outro) {
+            return outro instanceof ConjuntoEstados && mHash == ((ConjuntoEstados) outro).mHash &&
+                    Arrays.equals(mBits, ((ConjuntoEstados) outro).mBits);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.company;
+
+import java.util.HashSet;
+
+/**
+ * <p>Computa a palavra percorrendo a lista de regras de produção a cada símbolo, com os estados atuais guardados em
+ * um HashSet, sem usar nenhuma das tabelas pré-computadas do autômato</p>
+ *
+ * <p>Serve como referência nas medições de desempenho para comparar com os motores mais rápidos</p>
+ *
+ * @author goislimat
+ */
+public class ReconhecimentoPorRegras implements Processavel {
+
+    /** Resultado da última palavra processada */
+    private boolean mAceita;
+
+    /**
+     * <p>Computa a palavra símbolo a símbolo percorrendo todas as regras de produção</p>
+     *
+     * @param automato que deve ser usado para processar a entrada
+     * @param palavra que deve ser processada
+     */
+    @Override
+    public void processaEntrada(AutomatoFinito automato, String palavra) {
+        HashSet<String> estadosAtuais = new HashSet<String>();
+        estadosAtuais.add(automato.getEstadoIncial());
+
+        for (int i = 0; i < palavra.length() && !estadosAtuais.isEmpty(); ) {
+            int fim = palavra.offsetByCodePoints(i, 1);
+            String simbolo = palavra.substring(i, fim);
+            i = fim;
+
+            estadosAtuais = automato.avancaPorRegras(estadosAtuais, simbolo);
+        }
+
+        mAceita = false;
+        for (String estadoFinal : automato.getEstadosFinais()) {
+            if(estadosAtuais.contains(estadoFinal)) {
+                mAceita = true;
+                break;
+            }
+        }
+    }
+
+    /**
+     * <p>Resgata o resultado da última palavra processada</p>
+     *
+     * @return true caso a palavra tenha sido aceita
+     */
+    public boolean isAceita() { return mAceita; }
+}
@@ -0,0 +1,33 @@
+package com.company;
+
+/**
+ * <p>Computa a palavra sem exibir o passo-a-passo e sem pausas, guardando apenas se ela foi aceita</p>
+ *
+ * <p>Implementa processável para que possa ser usado no lugar de {@link ComputaAFN} quando apenas o resultado
+ * interessa, como nas medições de desempenho</p>
+ *
+ * @author goislimat
+ */
+public class ReconhecimentoSilencioso implements Processavel {
+
+    /** Resultado da última palavra processada */
+    private boolean mAceita;
+
+    /**
+     * <p>Computa a palavra usando o motor mais rápido disponível no autômato</p>
+     *
+     * @param automato que deve ser usado para processar a entrada
+     * @param palavra que deve ser processada
+     */
+    @Override
+    public void processaEntrada(AutomatoFinito automato, String palavra) {
+        mAceita = ((AFN) automato).reconhece(palavra);
+    }
+
+    /**
+     * <p>Resgata o resultado da última palavra processada</p>
+     *
+     * @return true caso a palavra tenha sido aceita
+     */
+    public boolean isAceita() { return mAceita; }
+}
@@ -2,6 +2,8 @@ package com.company;
 
 /**
  * <p>Classe que representa a estrutura de cada regra de produção</p>
+ * <p>O símbolo lido pode ser também um intervalo de code points no formato [a-z], que lê qualquer caractere entre
+ * os dois extremos, inclusive</p>
  *
  * @author goislimat
  */
@@ -16,6 +18,15 @@ public class RegraProducao {
     /** Símbolos lidos */
     private String mSimbolo;
 
+    /** Primeiro code point lido pela regra, -1 caso o símbolo não seja um único code point nem um intervalo */
+    private int mInicio = -1;
+
+    /** Último code point lido pela regra, -1 caso o símbolo não seja um único code point nem um intervalo */
+    private int mFim = -1;
+
+    /** Indica se o símbolo é um intervalo de code points */
+    private boolean mIntervalo;
+
     /**
      * <p>Cria uma nova transição com base nas informações passadas</p>
      *
@@ -27,6 +38,58 @@ public class RegraProducao {
         mOrigem = origem;
         mSimbolo = simbolo;
         mDestinos = destinos;
+
+        int[] intervalo = intervaloDe(simbolo);
+        if(intervalo != null) {
+            mInicio = intervalo[0];
+            mFim = intervalo[1];
+            mIntervalo = Character.charCount(mInicio) != simbolo.length();
+        }
+    }
+
+    /**
+     * <p>Identifica se o símbolo é um único code point ou um intervalo no formato [a-z] e devolve os extremos</p>
+     *
+     * @param simbolo a ser analisado
+     * @return o primeiro e o último code point lidos pelo símbolo, ou null caso o símbolo não seja nenhum dos dois
+     */
+    public static int[] intervaloDe(String simbolo) {
+        if(simbolo.isEmpty()) return null;
+
+        int primeiro = simbolo.codePointAt(0);
+        if(Character.charCount(primeiro) == simbolo.length()) return new int[] { primeiro, primeiro };
+
+        if(simbolo.charAt(0) != '[' || simbolo.charAt(simbolo.length() - 1) != ']') return null;
+
+        String extremos = simbolo.substring(1, simbolo.length() - 1);
+        if(extremos.isEmpty()) return null;
+
+        int inicio = extremos.codePointAt(0);
+        int separador = Character.charCount(inicio);
+        if(separador >= extremos.length() || extremos.charAt(separador) != '-') return null;
+
+        String resto = extremos.substring(separador + 1);
+        if(resto.isEmpty()) return null;
+
+        int fim = resto.codePointAt(0);
+        if(Character.charCount(fim) != resto.length() || fim < inicio) return null;
+
+        return new int[] { inicio, fim };
+    }
+
+    /**
+     * <p>Verifica se a regra lê o símbolo informado, seja por ser o mesmo símbolo ou por ele ser um code point que
+     * pertence ao intervalo da regra</p>
+     *
+     * @param simbolo lido da entrada
+     * @return true caso a regra leia o símbolo
+     */
+    public boolean le(String simbolo) {
+        if(mSimbolo.equals(simbolo)) return true;
+        if(!mIntervalo || simbolo.isEmpty()) return false;
+
+        int codePoint = simbolo.codePointAt(0);
+        return Character.charCount(codePoint) == simbolo.length() && codePoint >= mInicio && codePoint <= mFim;
     }
 
     /**
@@ -53,4 +116,18 @@ public class RegraProducao {
     public String[] getDestinos() {
         return mDestinos;
     }
+
+    /**
+     * <p>Resgata o primeiro code point lido pela regra</p>
+     *
+     * @return o primeiro code point, -1 caso o símbolo não seja um code point nem um intervalo
+     */
+    public int getInicio() { return mInicio; }
+
+    /**
+     * <p>Resgata o último code point lido pela regra</p>
+     *
+     * @return o último code point, -1 caso o símbolo não seja um code point nem um intervalo
+     */
+    public int getFim() { return mFim; }
 }
@@ -0,0 +1,291 @@
+package com.company;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * <p>Sessão de reconhecimento de um fluxo de entrada sem fim, lido em trechos</p>
+ * <p>Guarda o conjunto de estados atuais e quantos caracteres do fluxo já foram lidos, de forma que a qualquer
+ * momento é possível saber se o que foi lido até ali é aceito pelo autômato</p>
+ * <p>A sessão pode ser salva em um instantâneo binário de poucas dezenas de bytes e restaurada mais tarde sobre o
+ * mesmo autômato, que é conferido pelo hash do seu conteúdo</p>
+ * <p>A sessão vale apenas enquanto o autômato não for alterado: depois de uma alteração, qualquer consulta à sessão
+ * lança uma exceção</p>
+ *
+ * @author goislimat
+ */
+public class SessaoReconhecimento {
+
+    /** Identificador do formato do instantâneo, "AFNS" */
+    private static final int MAGICO = 0x41464E53;
+
+    /** Versão do formato do instantâneo */
+    private static final byte VERSAO = 1;
+
+    /** Autômato sendo utilizado */
+    private AFN mAfn;
+
+    /** Hash do conteúdo do autômato quando a sessão foi criada */
+    private long mHash;
+
+    /** Motor bit-paralelo do autômato, null caso o autômato tenha mais de 64 estados */
+    private MotorBitParalelo mMotor;
+
+    /** Estados atuais da computação quando há motor bit-paralelo */
+    private long mMascara;
+
+    /** Estados atuais da computação quando não há motor bit-paralelo */
+    private HashSet<String> mEstadosAtuais;
+
+    /** Quantidade de caracteres UTF-16 do fluxo já lidos */
+    private long mDeslocamento;
+
+    /** Primeira metade de um par substituto que chegou no fim do último trecho, 0 caso não haja */
+    private char mPendente;
+
+    /** Posição de cada estado no vetor de estados do autômato, usada nos instantâneos */
+    private HashMap<String, Integer> mPosicoes;
+
+    /** Posição no vetor de estados do autômato de cada bit do motor, -1 para bits sem estado */
+    private int[] mPosicoesBits;
+
+    /**
+     * <p>Inicia uma nova sessão partindo do estado inicial do autômato</p>
+     *
+     * @param afn que deve processar o fluxo
+     */
+    public SessaoReconhecimento(AFN afn) {
+        this(afn, new HashSet<String>(Arrays.asList(afn.getEstadoIncial())), 0L, (char) 0);
+    }
+
+    /**
+     * <p>Monta a sessão a partir de um conjunto de estados já conhecido</p>
+     *
+     * @param afn que deve processar o fluxo
+     * @param estadosAtuais da computação
+     * @param deslocamento quantidade de caracteres já lidos
+     * @param pendente primeira metade de um par substituto ainda não lido, 0 caso não haja
+     */
+    private SessaoReconhecimento(AFN afn, HashSet<String> estadosAtuais, long deslocamento, char pendente) {
+        mAfn = afn;
+        mHash = afn.getHashConteudo();
+        mMotor = afn.getMotor();
+        mDeslocamento = deslocamento;
+        mPendente = pendente;
+
+        String[] estados = afn.getEstados();
+        mPosicoes = new HashMap<String, Integer>();
+        for (int i = 0; i < estados.length; i++) {
+            if(!mPosicoes.containsKey(estados[i])) mPosicoes.put(estados[i], i);
+        }
+
+        if(mMotor != null) {
+            mMascara = mMotor.mascaraDe(estadosAtuais);
+
+            mPosicoesBits = new int[MotorBitParalelo.MAXIMO_ESTADOS];
+            Arrays.fill(mPosicoesBits, -1);
+            for (int i = estados.length - 1; i >= 0; i--) {
+                long bit = mMotor.mascaraDe(Collections.singleton(estados[i]));
+                if(bit != 0L) mPosicoesBits[Long.numberOfTrailingZeros(bit)] = i;
+            }
+        } else {
+            mEstadosAtuais = estadosAtuais;
+        }
+    }
+
+    /**
+     * <p>Confere se o autômato continua com o mesmo conteúdo de quando a sessão foi criada</p>
+     *
+     * @throws Exception caso o autômato tenha sido alterado depois de iniciada a sessão
+     */
+    private void verificaAutomato() throws Exception {
+        if(mAfn.getHashConteudo() != mHash) {
+            throw new Exception("O autômato foi alterado depois de iniciada a sessão de reconhecimento");
+        }
+    }
+
+    /**
+     * <p>Lê mais um trecho do fluxo. Um par substituto pode ficar dividido entre dois trechos</p>
+     *
+     * @param trecho lido do fluxo
+     * @throws Exception caso o autômato tenha sido alterado depois de iniciada a sessão
+     */
+    public void alimenta(CharSequence trecho) throws Exception {
+        verificaAutomato();
+
+        for (int i = 0; i < trecho.length(); i++) {
+            char caractere = trecho.charAt(i);
+
+            if(Character.isHighSurrogate(caractere)) {
+                if(mPendente != 0) le(mPendente);
+                mPendente = caractere;
+                continue;
+            }
+
+            int codePoint = caractere;
+            if(mPendente != 0) {
+                if(Character.isLowSurrogate(caractere)) {
+                    codePoint = Character.toCodePoint(mPendente, caractere);
+                } else {
+                    le(mPendente);
+                }
+                mPendente = 0;
+            }
+
+            le(codePoint);
+        }
+
+        mDeslocamento += trecho.length();
+    }
+
+    /**
+     * <p>Avança a computação lendo um code point</p>
+     *
+     * @param codePoint lido do fluxo
+     */
+    private void le(int codePoint) {
+        if(mMotor != null) {
+            if(mMascara != 0L) mMascara = mMotor.avanca(mMascara, mMotor.classeDe(codePoint));
+            return;
+        }
+
+        if(mEstadosAtuais.isEmpty()) return;
+
+        mEstadosAtuais = mAfn.avancaPorRegras(mEstadosAtuais, new String(Character.toChars(codePoint)));
+    }
+
+    /**
+     * <p>Verifica se o que foi lido do fluxo até aqui é aceito pelo autômato</p>
+     *
+     * @return true caso haja ao menos um estado final entre os estados atuais
+     * @throws Exception caso o autômato tenha sido alterado depois de iniciada a sessão
+     */
+    public boolean aceita() throws Exception {
+        verificaAutomato();
+
+        if(mMotor != null) return mMotor.aceita(mMascara);
+
+        for (String estadoFinal : mAfn.getEstadosFinais()) {
+            if(mEstadosAtuais.contains(estadoFinal)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * <p>Resgata os estados atuais da computação</p>
+     *
+     * @return um HashSet com os estados atuais
+     * @throws Exception caso o autômato tenha sido alterado depois de iniciada a sessão
+     */
+    public HashSet<String> getEstadosAtuais() throws Exception {
+        verificaAutomato();
+
+        if(mMotor != null) return mMotor.estadosDe(mMascara);
+
+        return new HashSet<String>(mEstadosAtuais);
+    }
+
+    /**
+     * <p>Resgata quantos caracteres UTF-16 do fluxo já foram lidos</p>
+     *
+     * @return o deslocamento no fluxo
+     */
+    public long getDeslocamento() { return mDeslocamento; }
+
+    /**
+     * <p>Salva a sessão em um instantâneo binário: identificador e versão do formato, hash do autômato,
+     * deslocamento, par substituto pendente e os estados atuais como um mapa de bits indexado pela posição de cada
+     * estado no vetor de estados do autômato</p>
+     *
+     * @return o instantâneo da sessão
+     * @throws Exception caso o autômato tenha sido alterado depois de iniciada a sessão
+     */
+    public byte[] salva() throws Exception {
+        verificaAutomato();
+
+        BitSet bits = new BitSet(mPosicoes.size());
+
+        if(mMotor != null) {
+            for (long mascara = mMascara; mascara != 0L; mascara &= mascara - 1) {
+                int posicao = mPosicoesBits[Long.numberOfTrailingZeros(mascara)];
+                if(posicao >= 0) bits.set(posicao);
+            }
+        } else {
+            for (String estado : mEstadosAtuais) {
+                Integer posicao = mPosicoes.get(estado);
+                if(posicao != null) bits.set(posicao);
+            }
+        }
+
+        long[] palavras = bits.toLongArray();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + 8 * palavras.length);
+
+        try {
+            DataOutputStream saida = new DataOutputStream(bytes);
+            saida.writeInt(MAGICO);
+            saida.writeByte(VERSAO);
+            saida.writeLong(mHash);
+            saida.writeLong(mDeslocamento);
+            saida.writeChar(mPendente);
+            saida.writeShort(palavras.length);
+            for (long palavra : palavras) saida.writeLong(palavra);
+            saida.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * <p>Restaura uma sessão a partir de um instantâneo criado por {@link #salva()}</p>
+     *
+     * @param afn sobre o qual a sessão foi criada
+     * @param instantaneo da sessão
+     * @return a sessão restaurada, pronta para continuar a ler o fluxo
+     * @throws Exception caso o instantâneo seja inválido ou tenha sido criado sobre outro autômato
+     */
+    public static SessaoReconhecimento restaura(AFN afn, byte[] instantaneo) throws Exception {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(instantaneo));
+
+        try {
+            if(entrada.readInt() != MAGICO || entrada.readByte() != VERSAO) {
+                throw new Exception("O instantâneo informado não é uma sessão de reconhecimento válida");
+            }
+
+            if(entrada.readLong() != afn.getHashConteudo()) {
+                throw new Exception("O instantâneo informado foi criado sobre um autômato diferente");
+            }
+
+            long deslocamento = entrada.readLong();
+            char pendente = entrada.readChar();
+
+            long[] palavras = new long[entrada.readUnsignedShort()];
+            for (int i = 0; i < palavras.length; i++) palavras[i] = entrada.readLong();
+
+            String[] estados = afn.getEstados();
+            BitSet bits = BitSet.valueOf(palavras);
+            HashSet<String> estadosAtuais = new HashSet<String>();
+
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                if(i >= estados.length) {
+                    throw new Exception("O instantâneo informado tem estados que não existem no autômato");
+                }
+                estadosAtuais.add(estados[i]);
+            }
+
+            return new SessaoReconhecimento(afn, estadosAtuais, deslocamento, pendente);
+        } catch (IOException e) {
+            throw new Exception("O instantâneo informado está incompleto");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.company;
+
+/**
+ * <p>Resultado da computação de uma palavra, publicado por {@link ProcessadorPalavras}</p>
+ *
+ * @author goislimat
+ */
+public class Veredito {
+
+    /** Palavra computada */
+    private String mPalavra;
+
+    /** Indica se a palavra foi aceita pelo autômato */
+    private boolean mAceita;
+
+    /**
+     * <p>Cria o resultado da computação de uma palavra</p>
+     *
+     * @param palavra computada
+     * @param aceita true caso a palavra tenha sido aceita pelo autômato
+     */
+    public Veredito(String palavra, boolean aceita) {
+        mPalavra = palavra;
+        mAceita = aceita;
+    }
+
+    /**
+     * <p>Resgata a palavra computada</p>
+     *
+     * @return a palavra
+     */
+    public String getPalavra() { return mPalavra; }
+
+    /**
+     * <p>Indica se a palavra foi aceita pelo autômato</p>
+     *
+     * @return true caso a palavra tenha sido aceita
+     */
+    public boolean isAceita() { return mAceita; }
+
+    @Override
+    public String toString() {
+        return mPalavra + (mAceita ? " >>>> PALAVRA ACEITA" : " >>>> PALAVRA REJEITADA");
+    }
+}